@@ -0,0 +1,90 @@
+package ust.tad.visualizationservice.harness;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.qpid.server.SystemLauncher;
+
+/**
+ * An in-process AMQP 0-9-1 broker based on Qpid Broker-J with an in-memory virtual host and the
+ * user guest/guest, so that the application connects to it like to RabbitMQ.
+ */
+public class EmbeddedBroker {
+
+  private static final String CONFIGURATION =
+      "{\n"
+          + "  \"name\": \"harness\",\n"
+          + "  \"modelVersion\": \"8.0\",\n"
+          + "  \"authenticationproviders\": [ {\n"
+          + "    \"name\": \"plain\",\n"
+          + "    \"type\": \"Plain\",\n"
+          + "    \"secureOnlyMechanisms\": [],\n"
+          + "    \"users\": [\n"
+          + "      { \"name\": \"guest\", \"type\": \"managed\", \"password\": \"guest\" }\n"
+          + "    ]\n"
+          + "  } ],\n"
+          + "  \"ports\": [ {\n"
+          + "    \"name\": \"AMQP\",\n"
+          + "    \"port\": \"${qpid.amqp_port}\",\n"
+          + "    \"authenticationProvider\": \"plain\",\n"
+          + "    \"virtualhostaliases\": [\n"
+          + "      { \"name\": \"nameAlias\", \"type\": \"nameAlias\" },\n"
+          + "      { \"name\": \"defaultAlias\", \"type\": \"defaultAlias\" }\n"
+          + "    ]\n"
+          + "  } ],\n"
+          + "  \"virtualhostnodes\": [ {\n"
+          + "    \"name\": \"default\",\n"
+          + "    \"type\": \"Memory\",\n"
+          + "    \"defaultVirtualHostNode\": \"true\",\n"
+          + "    \"virtualHostInitialConfiguration\": \"{\\\"type\\\": \\\"Memory\\\"}\"\n"
+          + "  } ]\n"
+          + "}\n";
+
+  private final SystemLauncher launcher = new SystemLauncher();
+
+  private int port;
+
+  /**
+   * Starts the broker on a free port.
+   *
+   * @param workDirectory The directory for the configuration and work files of the broker.
+   * @throws Exception if the broker could not be started.
+   */
+  public void start(Path workDirectory) throws Exception {
+    port = freePort();
+    Files.createDirectories(workDirectory);
+    Path configuration = workDirectory.resolve("broker.json");
+    try (Writer writer = Files.newBufferedWriter(configuration, StandardCharsets.UTF_8)) {
+      writer.write(CONFIGURATION);
+    }
+
+    Map<String, String> context = new HashMap<>();
+    context.put("qpid.amqp_port", Integer.toString(port));
+    context.put("qpid.work_dir", workDirectory.toString());
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("type", "Memory");
+    attributes.put("initialConfigurationLocation", configuration.toUri().toString());
+    attributes.put("startupLoggedToSystemOut", false);
+    attributes.put("context", context);
+    launcher.startup(attributes);
+  }
+
+  public int getPort() {
+    return this.port;
+  }
+
+  public void stop() {
+    launcher.shutdown();
+  }
+
+  static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
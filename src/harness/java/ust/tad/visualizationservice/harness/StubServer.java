@@ -0,0 +1,118 @@
+package ust.tad.visualizationservice.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the HTTP endpoints the application calls: the plugin registration of the
+ * analysis manager, the technology-agnostic models of the models service, and the files of the
+ * locations of the tasks.
+ */
+public class StubServer {
+
+  private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+  private final Map<String, byte[]> models = new ConcurrentHashMap<>();
+
+  private final String registrationResponse;
+
+  private HttpServer server;
+
+  /**
+   * Creates the stub server.
+   *
+   * @param requestQueueName The name of the request queue returned by the plugin registration.
+   * @param responseExchangeName The name of the response exchange returned by the plugin
+   *     registration.
+   */
+  public StubServer(String requestQueueName, String responseExchangeName) {
+    this.registrationResponse =
+        "{\"requestQueueName\":\""
+            + requestQueueName
+            + "\",\"responseExchangeName\":\""
+            + responseExchangeName
+            + "\"}";
+  }
+
+  /**
+   * Starts the server on a free port of localhost.
+   *
+   * @throws IOException if the server could not be started.
+   */
+  public void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", EmbeddedBroker.freePort()), 0);
+    server.setExecutor(Executors.newFixedThreadPool(4));
+    server.createContext(
+        "/plugin-registration",
+        exchange -> respond(exchange, registrationResponse.getBytes(StandardCharsets.UTF_8)));
+    server.createContext(
+        "/files/", exchange -> respond(exchange, files.get(exchange.getRequestURI().getPath())));
+    server.createContext(
+        "/technology-agnostic/",
+        exchange ->
+            respond(
+                exchange,
+                models.get(
+                    exchange
+                        .getRequestURI()
+                        .getPath()
+                        .substring("/technology-agnostic/".length()))));
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+  }
+
+  /**
+   * Serves a file of a location.
+   *
+   * @param path The path of the file, starting with /files/.
+   * @param content The content of the file.
+   * @return The URL of the file.
+   */
+  public String addFile(String path, byte[] content) {
+    files.put(path, content);
+    return getUrl() + path;
+  }
+
+  /**
+   * Serves the technology-agnostic model of a transformation process.
+   *
+   * @param transformationProcessId The ID of the transformation process.
+   * @param json The model in JSON.
+   */
+  public void addModel(String transformationProcessId, byte[] json) {
+    models.put(transformationProcessId, json);
+  }
+
+  public String getUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      String path = exchange.getRequestURI().getPath();
+      exchange
+          .getResponseHeaders()
+          .set(
+              "Content-Type", path.startsWith("/files/") ? "application/yaml" : "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    }
+  }
+}
@@ -0,0 +1,374 @@
+package ust.tad.visualizationservice.harness;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ust.tad.visualizationservice.VisualizationServiceApplication;
+import ust.tad.visualizationservice.analysis.EdmmParser;
+import ust.tad.visualizationservice.models.tadm.TechnologyAgnosticDeploymentModel;
+import ust.tad.visualizationservice.workload.WorkloadGenerator;
+import ust.tad.visualizationservice.workload.WorkloadOptions;
+
+/**
+ * End-to-end throughput harness. It starts an embedded AMQP broker, a stand-in for the analysis
+ * manager and the models service, and the application, which registers itself and listens on the
+ * request queue as in production. Then it floods the request queue with analysis tasks for
+ * synthetic models of the WorkloadGenerator and measures the time from sending a task to receiving
+ * its response.
+ *
+ * <p>The options are given as key=value arguments:
+ *
+ * <ul>
+ *   <li>tasks: the number of tasks (default 200)
+ *   <li>rate: the tasks sent per second, 0 sends all tasks at once (default 0)
+ *   <li>models: the number of different models the tasks cycle through (default 4)
+ *   <li>source: "locations" to let the application fetch the EDMM files from the stand-in, or
+ *       "models-service" to send tasks without locations, whose model is fetched from the models
+ *       service (default locations)
+ *   <li>options: the comma-separated options of each task, e.g. "engine=layered,dpi=96"
+ *   <li>sample-ms: the interval of the backlog samples (default 1000)
+ *   <li>timeout-s: the time to wait for the responses (default 600)
+ *   <li>report: the file the JSON report is written to (default target/harness-report.json)
+ *   <li>the options of the WorkloadGenerator, e.g. components=500, the seed of the first model
+ * </ul>
+ *
+ * Arguments starting with "--" are passed to the application, e.g. --graphviz.max-processes=2.
+ */
+public class ThroughputHarness {
+
+  private static final String REQUEST_QUEUE = "VisualizationServiceRequestQueue";
+
+  private static final String RESPONSE_EXCHANGE = "AnalysisTaskResponseExchange";
+
+  private static final String RESPONSE_QUEUE = "HarnessResponseQueue";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Map<UUID, Long> sent = new ConcurrentHashMap<>();
+
+  private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+  private final List<Map<String, Object>> samples = Collections.synchronizedList(new ArrayList<>());
+
+  private final AtomicInteger sentCount = new AtomicInteger();
+
+  private final AtomicInteger failed = new AtomicInteger();
+
+  private CountDownLatch responses;
+
+  public static void main(String[] args) throws Exception {
+    int exitCode = new ThroughputHarness().run(args);
+    System.exit(exitCode);
+  }
+
+  private int run(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<>();
+    options.put("tasks", "200");
+    options.put("rate", "0");
+    options.put("models", "4");
+    options.put("source", "locations");
+    options.put("options", "");
+    options.put("sample-ms", "1000");
+    options.put("timeout-s", "600");
+    options.put("report", "target/harness-report.json");
+    List<String> workloadArguments = new ArrayList<>();
+    List<String> applicationArguments = new ArrayList<>();
+    for (String arg : args) {
+      String[] option = arg.split("=", 2);
+      if (arg.startsWith("--")) {
+        applicationArguments.add(arg);
+      } else if (option.length == 2 && options.containsKey(option[0])) {
+        options.put(option[0], option[1]);
+      } else {
+        workloadArguments.add(arg);
+      }
+    }
+    int tasks = Integer.parseInt(options.get("tasks"));
+    double rate = Double.parseDouble(options.get("rate"));
+    boolean fromModelsService = options.get("source").equals("models-service");
+    List<String> taskOptions =
+        options.get("options").isEmpty()
+            ? Collections.emptyList()
+            : Arrays.asList(options.get("options").split(","));
+    Path workDirectory = Paths.get("target", "harness");
+
+    // The logging is configured by the application once it starts, until then only warnings
+    ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    EmbeddedBroker broker = new EmbeddedBroker();
+    broker.start(workDirectory.resolve("broker"));
+    CachingConnectionFactory connectionFactory =
+        new CachingConnectionFactory("localhost", broker.getPort());
+    connectionFactory.setUsername("guest");
+    connectionFactory.setPassword("guest");
+    RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+    Queue requestQueue = new Queue(REQUEST_QUEUE, true);
+    FanoutExchange responseExchange = new FanoutExchange(RESPONSE_EXCHANGE, true, false);
+    Queue responseQueue = new Queue(RESPONSE_QUEUE, false);
+    admin.declareQueue(requestQueue);
+    admin.declareExchange(responseExchange);
+    admin.declareQueue(responseQueue);
+    Binding binding = BindingBuilder.bind(responseQueue).to(responseExchange);
+    admin.declareBinding(binding);
+
+    StubServer stub = new StubServer(REQUEST_QUEUE, RESPONSE_EXCHANGE);
+    stub.start();
+
+    WorkloadOptions first = WorkloadOptions.fromArguments(workloadArguments);
+    List<List<String>> modelFiles = new ArrayList<>();
+    for (int model = 0; model < Integer.parseInt(options.get("models")); model++) {
+      List<String> modelArguments = new ArrayList<>(workloadArguments);
+      modelArguments.add("seed=" + (first.getSeed() + model));
+      modelFiles.add(WorkloadGenerator.generate(WorkloadOptions.fromArguments(modelArguments)));
+    }
+    List<Map<String, Object>> requests =
+        createRequests(tasks, modelFiles, taskOptions, fromModelsService, stub);
+
+    List<String> arguments = new ArrayList<>();
+    arguments.add("--spring.rabbitmq.host=localhost");
+    arguments.add("--spring.rabbitmq.port=" + broker.getPort());
+    arguments.add("--spring.rabbitmq.username=guest");
+    arguments.add("--spring.rabbitmq.password=guest");
+    arguments.add(
+        "--analysis-manager.plugin-registration.url=" + stub.getUrl() + "/plugin-registration");
+    arguments.add("--models-service.url=" + stub.getUrl());
+    arguments.add("--server.port=0");
+    arguments.add("--repository.path=" + workDirectory.resolve("repository").toAbsolutePath());
+    arguments.add("--logging.file.name=" + workDirectory.resolve("visualization-service.log"));
+    arguments.add("--logging.pattern.console=");
+    arguments.addAll(applicationArguments);
+    ConfigurableApplicationContext application =
+        SpringApplication.run(
+            VisualizationServiceApplication.class, arguments.toArray(new String[0]));
+
+    responses = new CountDownLatch(tasks);
+    SimpleMessageListenerContainer responseListener =
+        new SimpleMessageListenerContainer(connectionFactory);
+    responseListener.addQueueNames(RESPONSE_QUEUE);
+    responseListener.setMessageListener(message -> receiveResponse(message.getBody()));
+    responseListener.start();
+
+    RabbitTemplate template = new RabbitTemplate(connectionFactory);
+    template.setMessageConverter(new Jackson2JsonMessageConverter());
+    long start = System.nanoTime();
+    long sampleInterval = Long.parseLong(options.get("sample-ms"));
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    sampler.scheduleAtFixedRate(
+        () -> sample(admin, start), sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+
+    for (int i = 0; i < tasks; i++) {
+      if (rate > 0) {
+        long due = start + (long) (i * 1e9 / rate);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+      }
+      Map<String, Object> request = requests.get(i);
+      sent.put((UUID) request.get("taskId"), System.nanoTime());
+      sentCount.incrementAndGet();
+      template.convertAndSend(
+          REQUEST_QUEUE,
+          request,
+          message -> {
+            message.getMessageProperties().setHeader("formatIndicator", "AnalysisTaskStartRequest");
+            return message;
+          });
+    }
+    boolean completed = responses.await(Long.parseLong(options.get("timeout-s")), TimeUnit.SECONDS);
+    long duration = System.nanoTime() - start;
+    sampler.shutdownNow();
+    sample(admin, start);
+
+    Map<String, Object> report = report(tasks, rate, duration, options);
+    Files.createDirectories(Paths.get(options.get("report")).toAbsolutePath().getParent());
+    MAPPER
+        .writerWithDefaultPrettyPrinter()
+        .writeValue(Paths.get(options.get("report")).toFile(), report);
+    System.out.println(
+        String.format(
+            "Completed %d of %d tasks (%d failed) in %.1f s: %.2f tasks/s, latency p50 %d ms, p99"
+                + " %d ms, max %d ms",
+            report.get("completed"),
+            tasks,
+            failed.get(),
+            duration / 1e9,
+            report.get("tasksPerSecond"),
+            report.get("p50Ms"),
+            report.get("p99Ms"),
+            report.get("maxMs")));
+    System.out.println("Report written to " + options.get("report"));
+
+    responseListener.stop();
+    application.close();
+    connectionFactory.destroy();
+    stub.stop();
+    broker.stop();
+    return completed && failed.get() == 0 ? 0 : 1;
+  }
+
+  /*
+   * Creates the AnalysisTaskStartRequests, each one for a new transformation process and the next
+   * model. The models are served by the stub server, either as files of the locations of the task
+   * or as technology-agnostic model of the transformation process.
+   */
+  private List<Map<String, Object>> createRequests(
+      int tasks,
+      List<List<String>> modelFiles,
+      List<String> taskOptions,
+      boolean fromModelsService,
+      StubServer stub)
+      throws Exception {
+    List<List<Map<String, Object>>> locations = new ArrayList<>();
+    List<TechnologyAgnosticDeploymentModel> models = new ArrayList<>();
+    for (int model = 0; model < modelFiles.size(); model++) {
+      List<Map<String, Object>> modelLocations = new ArrayList<>();
+      EdmmParser parser = new EdmmParser();
+      for (int file = 0; file < modelFiles.get(model).size(); file++) {
+        String content = modelFiles.get(model).get(file);
+        Map<String, Object> location = new LinkedHashMap<>();
+        location.put(
+            "url",
+            stub.addFile(
+                "/files/model-" + model + "/workload-" + file + ".yaml",
+                content.getBytes(StandardCharsets.UTF_8)));
+        location.put("startLineNumber", 0);
+        location.put("endLineNumber", 0);
+        modelLocations.add(location);
+        if (fromModelsService) {
+          EdmmParser fileParser = new EdmmParser();
+          fileParser.parse(new StringReader(content));
+          parser.merge(fileParser);
+        }
+      }
+      locations.add(modelLocations);
+      models.add(fromModelsService ? parser.toModel(null) : null);
+    }
+
+    List<Map<String, Object>> requests = new ArrayList<>();
+    for (int i = 0; i < tasks; i++) {
+      UUID transformationProcessId = UUID.randomUUID();
+      Map<String, Object> request = new LinkedHashMap<>();
+      request.put("taskId", UUID.randomUUID());
+      request.put("transformationProcessId", transformationProcessId);
+      request.put("commands", Collections.emptyList());
+      request.put("options", taskOptions);
+      if (fromModelsService) {
+        TechnologyAgnosticDeploymentModel model = models.get(i % models.size());
+        model.setTransformationProcessId(transformationProcessId);
+        stub.addModel(transformationProcessId.toString(), MAPPER.writeValueAsBytes(model));
+        request.put("locations", Collections.emptyList());
+      } else {
+        request.put("locations", locations.get(i % locations.size()));
+      }
+      requests.add(request);
+    }
+    return requests;
+  }
+
+  private void receiveResponse(byte[] body) {
+    long received = System.nanoTime();
+    Map<?, ?> response;
+    try {
+      response = MAPPER.readValue(body, Map.class);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    Object taskId = response.get("taskId");
+    Long sentAt = taskId == null ? null : sent.remove(UUID.fromString(taskId.toString()));
+    if (sentAt == null) {
+      return;
+    }
+    if (!Boolean.TRUE.equals(response.get("success"))) {
+      failed.incrementAndGet();
+      System.out.println("Task " + taskId + " failed: " + response.get("errorMessage"));
+    }
+    latencies.add(TimeUnit.NANOSECONDS.toMillis(received - sentAt));
+    responses.countDown();
+  }
+
+  /*
+   * Samples the number of sent and completed tasks and the backlog of the request queue.
+   */
+  private void sample(RabbitAdmin admin, long start) {
+    QueueInformation queue = admin.getQueueInfo(REQUEST_QUEUE);
+    Map<String, Object> sample = new LinkedHashMap<>();
+    sample.put("timeMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    sample.put("sent", sentCount.get());
+    sample.put("completed", latencies.size());
+    sample.put("backlog", queue == null ? -1 : queue.getMessageCount());
+    sample.put(
+        "inProgress",
+        sentCount.get() - latencies.size() - (queue == null ? 0 : queue.getMessageCount()));
+    samples.add(sample);
+    System.out.println(
+        String.format(
+            "%6d ms: sent %d, completed %d, backlog %d, in progress %d",
+            sample.get("timeMs"),
+            sample.get("sent"),
+            sample.get("completed"),
+            sample.get("backlog"),
+            sample.get("inProgress")));
+  }
+
+  private Map<String, Object> report(
+      int tasks, double rate, long duration, Map<String, String> options) {
+    List<Long> sorted;
+    synchronized (latencies) {
+      sorted = new ArrayList<>(latencies);
+    }
+    Collections.sort(sorted);
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("options", options);
+    report.put("tasks", tasks);
+    report.put("rate", rate);
+    report.put("completed", sorted.size());
+    report.put("failed", failed.get());
+    report.put("durationMs", TimeUnit.NANOSECONDS.toMillis(duration));
+    report.put("tasksPerSecond", sorted.size() / (duration / 1e9));
+    report.put("p50Ms", percentile(sorted, 0.5));
+    report.put("p90Ms", percentile(sorted, 0.9));
+    report.put("p99Ms", percentile(sorted, 0.99));
+    report.put("maxMs", sorted.isEmpty() ? 0L : sorted.get(sorted.size() - 1));
+    report.put("samples", samples);
+    return report;
+  }
+
+  private static long percentile(List<Long> sorted, double percentile) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile * sorted.size());
+    return sorted.get(Math.max(0, rank - 1));
+  }
+}
@@ -0,0 +1,27 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures writing the layout graph of a model in the DOT language. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DotBenchmark {
+
+  @Benchmark
+  public byte[] createDotFile(ModelState model) {
+    return model.layoutService.createDotFile(
+        model.graph,
+        model.options,
+        model.layoutStrategySelector.select(model.graph, model.options));
+  }
+}
@@ -0,0 +1,58 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ust.tad.visualizationservice.layout.Layout;
+import ust.tad.visualizationservice.layout.LayoutStrategy;
+import ust.tad.visualizationservice.layout.PlainLayout;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
+
+/**
+ * Measures computing the layout of a model with a layout engine, including the split into connected
+ * components, and converting it into pixel coordinates. The dot engine requires GraphVIZ to be
+ * installed, it is selected with -p engine=dot.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LayoutBenchmark {
+
+  @Param({"layered", "force"})
+  public String engine;
+
+  private LayoutStrategy strategy;
+
+  @Setup(Level.Trial)
+  public void setUp(ModelState model) {
+    if (engine.equals("layered")) {
+      strategy = LayoutStrategy.LAYERED;
+    } else if (engine.equals("force")) {
+      strategy = LayoutStrategy.FORCE;
+    } else {
+      strategy = model.layoutStrategySelector.select(model.graph, model.options);
+    }
+  }
+
+  @Benchmark
+  public Layout layout(ModelState model) {
+    PlainLayout output =
+        model.layoutService.computeLayout(
+            model.graph, model.options, strategy, ModelState.deadline(), new TaskMetrics());
+    return model.layoutService.applyLayout(
+        output.getNodes(), output.getEdges(), model.options, strategy);
+  }
+}
@@ -0,0 +1,133 @@
+package ust.tad.visualizationservice.analysis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import ust.tad.visualizationservice.layout.ForceLayoutEngine;
+import ust.tad.visualizationservice.layout.GraphvizBatcher;
+import ust.tad.visualizationservice.layout.GraphvizRunner;
+import ust.tad.visualizationservice.layout.LayeredLayoutEngine;
+import ust.tad.visualizationservice.layout.Layout;
+import ust.tad.visualizationservice.layout.LayoutGraph;
+import ust.tad.visualizationservice.layout.LayoutOptions;
+import ust.tad.visualizationservice.layout.LayoutStrategy;
+import ust.tad.visualizationservice.layout.LayoutStrategySelector;
+import ust.tad.visualizationservice.layout.PlainLayout;
+import ust.tad.visualizationservice.layout.RelationIndex;
+import ust.tad.visualizationservice.metrics.PipelineMetrics;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
+import ust.tad.visualizationservice.models.tadm.TechnologyAgnosticDeploymentModel;
+import ust.tad.visualizationservice.tosca.ToscaWriter;
+import ust.tad.visualizationservice.workload.WorkloadGenerator;
+import ust.tad.visualizationservice.workload.WorkloadOptions;
+
+/**
+ * A synthetic model of the WorkloadGenerator and its intermediate results for each pipeline stage,
+ * so that every benchmark measures only its own stage. The LayoutService is wired by hand with the
+ * default configuration.
+ */
+@State(Scope.Benchmark)
+public class ModelState {
+
+  @Param({"10", "1000", "20000"})
+  public int components;
+
+  @Param({"1", "4"})
+  public int hostingDepth;
+
+  @Param({"0.2", "1.0"})
+  public double connectsDensity;
+
+  @Param({"42"})
+  public long seed;
+
+  byte[] yaml;
+
+  TechnologyAgnosticDeploymentModel tadm;
+
+  RelationIndex relationIndex;
+
+  LayoutGraph graph;
+
+  LayoutOptions options;
+
+  LayoutStrategySelector layoutStrategySelector;
+
+  LayoutService layoutService;
+
+  Layout layout;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    WorkloadOptions workload =
+        new WorkloadOptions(components, hostingDepth, "random", connectsDensity, 1, 3, 1, 1, seed);
+    yaml = WorkloadGenerator.generate(workload).get(0).getBytes(StandardCharsets.UTF_8);
+    tadm = parse(yaml);
+    relationIndex = RelationIndex.fromModel(tadm.getRelations());
+    graph = LayoutGraph.fromModel(tadm.getComponents(), relationIndex);
+    options = LayoutOptions.fromTaskOptions(Collections.emptyList());
+    layoutStrategySelector = new LayoutStrategySelector(150, 300, 1000, 2000, 5000, 10000);
+    layoutService = createLayoutService();
+
+    PlainLayout output =
+        layoutService.computeLayout(
+            graph, options, LayoutStrategy.LAYERED, deadline(), new TaskMetrics());
+    layout =
+        layoutService.applyLayout(
+            output.getNodes(), output.getEdges(), options, LayoutStrategy.LAYERED);
+  }
+
+  static TechnologyAgnosticDeploymentModel parse(byte[] yaml) throws Exception {
+    EdmmParser parser = new EdmmParser();
+    parser.parse(new InputStreamReader(new ByteArrayInputStream(yaml), StandardCharsets.UTF_8));
+    return parser.toModel(UUID.randomUUID());
+  }
+
+  static long deadline() {
+    return System.nanoTime() + 600_000_000_000L;
+  }
+
+  private static LayoutService createLayoutService() {
+    ThreadPoolTaskExecutor streamExecutor = new ThreadPoolTaskExecutor();
+    streamExecutor.setCorePoolSize(8);
+    streamExecutor.setDaemon(true);
+    streamExecutor.initialize();
+    ThreadPoolTaskScheduler sampleScheduler = new ThreadPoolTaskScheduler();
+    sampleScheduler.setRemoveOnCancelPolicy(true);
+    sampleScheduler.setDaemon(true);
+    sampleScheduler.initialize();
+    PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+    GraphvizRunner graphvizRunner = new GraphvizRunner("dot", 4, 20);
+    ReflectionTestUtils.setField(graphvizRunner, "graphvizStreamTaskExecutor", streamExecutor);
+    ReflectionTestUtils.setField(graphvizRunner, "graphvizSampleTaskScheduler", sampleScheduler);
+    ReflectionTestUtils.setField(graphvizRunner, "pipelineMetrics", pipelineMetrics);
+    ThreadPoolTaskExecutor partExecutor = new ThreadPoolTaskExecutor();
+    partExecutor.setCorePoolSize(4);
+    partExecutor.setDaemon(true);
+    partExecutor.initialize();
+    GraphvizBatcher graphvizBatcher = new GraphvizBatcher(1, 0);
+    ReflectionTestUtils.setField(graphvizBatcher, "graphvizRunner", graphvizRunner);
+
+    LayoutService layoutService = new LayoutService();
+    ReflectionTestUtils.setField(layoutService, "layeredLayoutEngine", new LayeredLayoutEngine());
+    ReflectionTestUtils.setField(layoutService, "forceLayoutEngine", new ForceLayoutEngine());
+    ReflectionTestUtils.setField(layoutService, "graphvizBatcher", graphvizBatcher);
+    ReflectionTestUtils.setField(layoutService, "toscaWriter", new ToscaWriter());
+    ReflectionTestUtils.setField(layoutService, "pipelineMetrics", pipelineMetrics);
+    ReflectionTestUtils.setField(layoutService, "layoutPartTaskExecutor", partExecutor);
+    ReflectionTestUtils.setField(layoutService, "splitComponents", true);
+    ReflectionTestUtils.setField(layoutService, "maxDotInvocations", 4);
+    return layoutService;
+  }
+}
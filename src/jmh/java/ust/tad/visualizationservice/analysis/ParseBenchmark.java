@@ -0,0 +1,25 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ust.tad.visualizationservice.models.tadm.TechnologyAgnosticDeploymentModel;
+
+/** Measures parsing the EDMM YAML of a model into a TADM. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+  @Benchmark
+  public TechnologyAgnosticDeploymentModel parse(ModelState model) throws Exception {
+    return ModelState.parse(model.yaml);
+  }
+}
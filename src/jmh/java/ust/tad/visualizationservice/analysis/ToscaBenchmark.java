@@ -0,0 +1,54 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ust.tad.visualizationservice.layout.LayoutCache;
+import ust.tad.visualizationservice.models.tadm.Component;
+import ust.tad.visualizationservice.models.tadm.Property;
+import ust.tad.visualizationservice.tosca.ToscaWriter;
+
+/**
+ * Measures rendering the TOSCA service template and node types of a model, and the classification
+ * of the property keys and values that the ToscaWriter performs for each property.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ToscaBenchmark {
+
+  @Benchmark
+  public byte[] createServiceTemplate(ModelState model) {
+    return model.layoutService.createServiceTemplate(
+        model.tadm.getComponents(),
+        model.relationIndex,
+        model.layout,
+        LayoutCache.fingerprint(model.options),
+        model.tadm.getTransformationProcessId());
+  }
+
+  @Benchmark
+  public Map<String, byte[]> createNodeTypes(ModelState model) {
+    return model.layoutService.createNodeTypes(
+        model.tadm.getComponentTypes(), model.tadm.getTransformationProcessId());
+  }
+
+  @Benchmark
+  public void classifyProperties(ModelState model, Blackhole blackhole) {
+    for (Component component : model.tadm.getComponents()) {
+      for (Property property : component.getProperties()) {
+        blackhole.consume(ToscaWriter.isNumeric(property.getKey()));
+        blackhole.consume(ToscaWriter.isVariable(property.getValue().toString()));
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.util.Objects;
+import java.util.UUID;
+import ust.tad.visualizationservice.layout.LayoutOptions;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
+
+/**
+ * The immutable context of a single analysis task. It is passed from the parsing of the model
+ * through the layout to the creation of the TOSCA files, so that concurrent tasks do not share any
+ * state. Only the metrics of the task are collected along the way, they are not part of the
+ * equality of contexts.
+ */
+public final class AnalysisContext {
+
+  private final UUID taskId;
+
+  private final UUID transformationProcessId;
+
+  private final LayoutOptions layoutOptions;
+
+  private final TaskMetrics metrics = new TaskMetrics();
+
+  public AnalysisContext(UUID taskId, UUID transformationProcessId, LayoutOptions layoutOptions) {
+    this.taskId = taskId;
+    this.transformationProcessId = transformationProcessId;
+    this.layoutOptions = layoutOptions;
+  }
+
+  public UUID getTaskId() {
+    return this.taskId;
+  }
+
+  public UUID getTransformationProcessId() {
+    return this.transformationProcessId;
+  }
+
+  public LayoutOptions getLayoutOptions() {
+    return this.layoutOptions;
+  }
+
+  public TaskMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof AnalysisContext)) {
+      return false;
+    }
+    AnalysisContext analysisContext = (AnalysisContext) o;
+    return Objects.equals(taskId, analysisContext.taskId)
+        && Objects.equals(transformationProcessId, analysisContext.transformationProcessId)
+        && Objects.equals(layoutOptions, analysisContext.layoutOptions);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(taskId, transformationProcessId, layoutOptions);
+  }
+
+  @Override
+  public String toString() {
+    return "{"
+        + " taskId='"
+        + getTaskId()
+        + "'"
+        + ", transformationProcessId='"
+        + getTransformationProcessId()
+        + "'"
+        + ", layoutOptions='"
+        + getLayoutOptions()
+        + "'"
+        + "}";
+  }
+}
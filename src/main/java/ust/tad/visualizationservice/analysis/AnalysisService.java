@@ -1,19 +1,27 @@
 package ust.tad.visualizationservice.analysis;
 
-import java.io.BufferedReader;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.URL;
+import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.yaml.snakeyaml.Yaml;
+import ust.tad.visualizationservice.analysistask.AnalysisTaskMetrics;
 import ust.tad.visualizationservice.analysistask.AnalysisTaskResponseSender;
 import ust.tad.visualizationservice.analysistask.Location;
+import ust.tad.visualizationservice.layout.LayoutOptions;
+import ust.tad.visualizationservice.layout.LayoutStrategy;
+import ust.tad.visualizationservice.metrics.PipelineMetrics;
+import ust.tad.visualizationservice.metrics.PipelineMetrics.Stage;
 import ust.tad.visualizationservice.models.ModelsService;
 import ust.tad.visualizationservice.models.tadm.*;
 import ust.tad.visualizationservice.models.tsdm.InvalidAnnotationException;
@@ -24,31 +32,31 @@ public class AnalysisService {
   private static final Logger LOG = LoggerFactory.getLogger(AnalysisService.class);
   private static final Set<String> supportedFileExtensions = Set.of("yaml", "yml");
 
-  private final List<Component> components = new ArrayList<>();
-  private final List<Relation> relations = new ArrayList<>();
-  private final List<ComponentType> componentTypes = new ArrayList<>();
-  private final List<RelationType> relationTypes = new ArrayList<>();
-
   @Autowired ModelsService modelsService;
 
   @Autowired AnalysisTaskResponseSender analysisTaskResponseSender;
 
   @Autowired LayoutService layoutService;
 
-  private List<Property> properties = new ArrayList<>();
-  private TechnologyAgnosticDeploymentModel tadm;
-  private UUID transformationProcessId;
+  @Autowired ThreadPoolTaskExecutor locationTaskExecutor;
+
+  @Autowired PipelineMetrics pipelineMetrics;
+
+  @Value("${analysis.locations.connect-timeout-ms}")
+  private int connectTimeout;
 
-  private double dpi = 96.0;
-  private String flatten = "false";
-  private int width = 1920;
-  private int height = 1080;
+  @Value("${analysis.locations.read-timeout-ms}")
+  private int readTimeout;
+
+  @Value("${analysis.response.metrics:true}")
+  private boolean responseMetrics;
 
   /*
    * Start the analysis process for the given task.
    * @param taskId the task id
    * @param transformationProcessId the transformation process id
    * @param commands the commands
+   * @param options the options
    * @param locations the locations
    */
   public void startAnalysis(
@@ -57,686 +65,125 @@ public class AnalysisService {
       List<String> commands,
       List<String> options,
       List<Location> locations) {
-    if (!locations.isEmpty()) {
-      this.transformationProcessId = transformationProcessId;
-      try {
-        runAnalysis(locations);
-      } catch (IOException
-          | InvalidAnnotationException
-          | InvalidPropertyValueException
-          | InvalidRelationException e) {
-        e.printStackTrace();
-        analysisTaskResponseSender.sendFailureResponse(
-            taskId, e.getClass() + ": " + e.getMessage());
-        return;
+    AnalysisContext context =
+        new AnalysisContext(
+            taskId, transformationProcessId, LayoutOptions.fromTaskOptions(options));
+    TechnologyAgnosticDeploymentModel tadm;
+    CompletableFuture<LayoutStrategy> layout;
+
+    pipelineMetrics.taskStarted();
+    try {
+      if (!locations.isEmpty()) {
+        tadm = runAnalysis(context, locations);
+      } else {
+        Timer.Sample sample = pipelineMetrics.start();
+        tadm = modelsService.getTechnologyAgnosticDeploymentModel(transformationProcessId);
+        pipelineMetrics.stop(sample, Stage.FETCH, context.getMetrics());
       }
-    } else {
-      this.tadm = modelsService.getTechnologyAgnosticDeploymentModel(transformationProcessId);
+      pipelineMetrics.recordModel(tadm.getComponents().size(), tadm.getRelations().size());
+      context.getMetrics().setModelSize(tadm.getComponents().size(), tadm.getRelations().size());
+      layout = layoutService.generateLayout(tadm, context);
+    } catch (IOException
+        | InvalidAnnotationException
+        | InvalidPropertyValueException
+        | InvalidRelationException e) {
+      LOG.error("Analysis of task {} failed", taskId, e);
+      analysisTaskResponseSender.sendFailureResponse(
+          taskId, e.getClass() + ": " + e.getMessage(), createMetrics(context));
+      pipelineMetrics.taskFinished();
+      return;
+    } catch (RuntimeException e) {
+      pipelineMetrics.taskFinished();
+      throw e;
     }
 
-    for (String option : options) {
-      if (option.contains("dpi")) {
-        dpi = Double.parseDouble(option.split("dpi=")[1]);
-      } else if (option.contains("flatten")) {
-        flatten = option.split("flatten=")[1];
-      } else if (option.contains("width")) {
-        width = Integer.parseInt(option.split("width=")[1]);
-      } else if (option.contains("height")) {
-        height = Integer.parseInt(option.split("height=")[1]);
-      }
-    }
-
-    layoutService.generateLayout(tadm, dpi, flatten, width, height);
-    analysisTaskResponseSender.sendSuccessResponse(taskId);
+    layout.whenComplete(
+        (strategy, e) -> {
+          if (e == null) {
+            analysisTaskResponseSender.sendSuccessResponse(
+                taskId, strategy.toString(), createMetrics(context));
+          } else {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof RuntimeException && cause.getCause() != null) {
+              cause = cause.getCause();
+            }
+            LOG.error("Writing the artifacts of task {} failed", taskId, cause);
+            analysisTaskResponseSender.sendFailureResponse(
+                taskId, cause.getClass() + ": " + cause.getMessage(), createMetrics(context));
+          }
+          pipelineMetrics.taskFinished();
+        });
   }
 
   /*
-   * Run the analysis for the given locations.
+   * Run the analysis for the given locations. The supported locations are fetched and parsed
+   * concurrently, the results are merged in the order of the locations.
+   * @param context the context of the task
    * @param locations the locations
+   * @return the TADM parsed from the locations
    */
-  private void runAnalysis(List<Location> locations)
+  private TechnologyAgnosticDeploymentModel runAnalysis(
+      AnalysisContext context, List<Location> locations)
       throws IOException,
           InvalidAnnotationException,
           InvalidPropertyValueException,
           InvalidRelationException {
+    List<Future<EdmmParser>> results = new ArrayList<>();
     for (Location location : locations) {
       String fileExtension = StringUtils.getFilenameExtension(location.getUrl().toString());
       if (supportedFileExtensions.contains(fileExtension)) {
-        parseFile(location.getUrl());
-      }
-    }
-    this.tadm =
-        new TechnologyAgnosticDeploymentModel(
-            transformationProcessId,
-            properties,
-            components,
-            relations,
-            componentTypes,
-            relationTypes);
-  }
-
-  /*
-   * Read the artifacts from the given object.
-   * @param obj the object
-   * @return the list of artifacts
-   */
-  private List<Artifact> readArtifacts(Object obj) {
-    List<Artifact> artifacts = new ArrayList<>();
-    String fileURI, key;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        Artifact artifact = new Artifact();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-
-          switch (key) {
-            case "type":
-              artifact.setType(value.toString());
-              break;
-            case "name":
-              artifact.setName(value.toString());
-              break;
-            case "fileURI":
-              if (Objects.nonNull(value)) {
-                fileURI = value.toString();
-                if (!fileURI.isEmpty() && !fileURI.equals("-")) {
-                  artifact.setFileUri(URI.create(value.toString()));
-                }
-              }
-              break;
-          }
-        }
-        artifact.setConfidence(Confidence.CONFIRMED);
-        artifacts.add(artifact);
-      }
-    }
-    return artifacts;
-  }
-
-  /*
-   * Read the operations from the given object.
-   * @param obj the object
-   * @return the list of operations
-   */
-  private List<Operation> readOperations(Object obj) {
-    List<Operation> operations = new ArrayList<>();
-    String key;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        Operation operation = new Operation();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-
-          switch (key) {
-            case "name":
-              operation.setName(value.toString());
-              break;
-            case "artifacts":
-              operation.setArtifacts(readArtifacts(value));
-          }
-        }
-        operation.setConfidence(Confidence.CONFIRMED);
-        operations.add(operation);
-      }
-    }
-    return operations;
-  }
-
-  /*
-   * Read the properties from the given object.
-   * @param obj the object
-   * @return the list of properties
-   */
-  private List<Property> readProperties(Object obj) throws InvalidPropertyValueException {
-    List<Property> properties = new ArrayList<>();
-    String key;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        Property property = new Property();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-
-          switch (key) {
-            case "key":
-              property.setKey(value.toString());
-              break;
-            case "type":
-              switch (value.toString()) {
-                case "BOOLEAN":
-                  property.setType(PropertyType.BOOLEAN);
-                  property.setValue(false);
-                  break;
-                case "DOUBLE":
-                  property.setType(PropertyType.DOUBLE);
-                  property.setValue(0.0);
-                  break;
-                case "INTEGER":
-                  property.setType(PropertyType.INTEGER);
-                  property.setValue(0);
-                  break;
-                default:
-                  property.setType(PropertyType.STRING);
-                  property.setValue("");
-                  break;
-              }
-              break;
-            case "default_value":
-            case "value":
-              property.setValue(value);
-              break;
-            case "required":
-              property.setRequired(Boolean.parseBoolean(value.toString()));
-              break;
-            default:
-              property.setKey(key);
-              if (value instanceof Map) {
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                for (Map.Entry<String, Object> valueEntry : valueMap.entrySet()) {
-                  key = valueEntry.getKey();
-                  value = valueEntry.getValue();
-
-                  switch (key) {
-                    case "type":
-                      switch (value.toString()) {
-                        case "BOOLEAN":
-                          property.setType(PropertyType.BOOLEAN);
-                          property.setValue(false);
-                          break;
-                        case "DOUBLE":
-                          property.setType(PropertyType.DOUBLE);
-                          property.setValue(0.0);
-                          break;
-                        case "INTEGER":
-                          property.setType(PropertyType.INTEGER);
-                          property.setValue(0);
-                          break;
-                        default:
-                          property.setType(PropertyType.STRING);
-                          property.setValue("");
-                          break;
-                      }
-                      break;
-                    case "required":
-                      property.setRequired(Boolean.parseBoolean(value.toString()));
-                      break;
+        results.add(
+            locationTaskExecutor.submit(
+                () -> {
+                  EdmmParser fileParser = new EdmmParser();
+                  Timer.Sample sample = pipelineMetrics.start();
+                  try (Reader reader =
+                      EdmmParser.open(location.getUrl(), connectTimeout, readTimeout)) {
+                    pipelineMetrics.stop(sample, Stage.FETCH, context.getMetrics());
+                    sample = pipelineMetrics.start();
+                    fileParser.parse(reader);
+                    pipelineMetrics.stop(sample, Stage.PARSE, context.getMetrics());
                   }
-                }
-
-              } else {
-                switch (value.getClass().getSimpleName()) {
-                  case "Boolean":
-                    property.setType(PropertyType.BOOLEAN);
-                    property.setValue(false);
-                    break;
-                  case "Double":
-                    property.setType(PropertyType.DOUBLE);
-                    property.setValue(0.0);
-                    break;
-                  case "Integer":
-                    property.setType(PropertyType.INTEGER);
-                    property.setValue(0);
-                    break;
-                  default:
-                    property.setType(PropertyType.STRING);
-                    property.setValue("");
-                    break;
-                }
-                property.setValue(value);
-                property.setRequired(false);
-              }
-              break;
-          }
-        }
-        property.setConfidence(Confidence.CONFIRMED);
-        properties.add(property);
+                  return fileParser;
+                }));
       }
     }
-    return properties;
-  }
-
-  /*
-   * Read the component types from the given object.
-   * @param obj the object
-   */
-  private void readComponentTypes(Object obj) throws InvalidPropertyValueException {
-    String key, parent;
-    Object value;
 
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        ComponentType componentType = new ComponentType();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-
-          switch (key) {
-            case "name":
-              componentType.setName(value.toString());
-              break;
-            case "extends":
-              if (Objects.nonNull(value)) {
-                parent = value.toString();
-                if (!parent.isEmpty() && !parent.equals("-")) {
-                  for (ComponentType parentType : componentTypes) {
-                    if (parentType.getName().equals(value.toString())) {
-                      componentType.setParentType(parentType);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "description":
-              if (Objects.nonNull(value)) {
-                componentType.setDescription(value.toString());
-              }
-              break;
-            case "properties":
-              componentType.setProperties(readProperties(value));
-              break;
-            case "operations":
-              componentType.setOperations(readOperations(value));
-              break;
-            default:
-              componentType.setName(key);
-              if (value instanceof Map) {
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                for (Map.Entry<String, Object> valueEntry : valueMap.entrySet()) {
-                  key = valueEntry.getKey();
-                  value = valueEntry.getValue();
-
-                  switch (key) {
-                    case "extends":
-                      if (Objects.nonNull(value)) {
-                        parent = value.toString();
-                        if (!parent.isEmpty() && !parent.equals("-")) {
-                          for (ComponentType parentType : componentTypes) {
-                            if (parentType.getName().equals(value.toString())) {
-                              componentType.setParentType(parentType);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "description":
-                      if (Objects.nonNull(value)) {
-                        componentType.setDescription(value.toString());
-                      }
-                      break;
-                    case "properties":
-                      componentType.setProperties(readProperties(value));
-                      break;
-                    case "operations":
-                      componentType.setOperations(readOperations(value));
-                      break;
-                  }
-                }
-              }
-              break;
-          }
-        }
-        componentTypes.add(componentType);
+    EdmmParser parser = new EdmmParser();
+    try {
+      for (Future<EdmmParser> result : results) {
+        parser.merge(result.get());
       }
-    }
-  }
-
-  /*
-   * Read the relation types from the given object.
-   * @param obj the object
-   */
-  private void readRelationTypes(Object obj) throws InvalidPropertyValueException {
-    String key, parent;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        RelationType relationType = new RelationType();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-
-          switch (key) {
-            case "name":
-              relationType.setName(value.toString());
-              break;
-            case "extends":
-              if (Objects.nonNull(value)) {
-                parent = value.toString();
-                if (!parent.isEmpty() && !parent.equals("-")) {
-                  for (RelationType parentType : relationTypes) {
-                    if (parentType.getName().equals(parent)) {
-                      relationType.setParentType(parentType);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "description":
-              if (Objects.nonNull(value)) {
-                relationType.setDescription(value.toString());
-              }
-              break;
-            case "properties":
-              relationType.setProperties(readProperties(value));
-              break;
-            case "operations":
-              relationType.setOperations(readOperations(value));
-              break;
-            default:
-              relationType.setName(key);
-              if (value instanceof Map) {
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                for (Map.Entry<String, Object> valueEntry : valueMap.entrySet()) {
-                  key = valueEntry.getKey();
-                  value = valueEntry.getValue();
-                  switch (key) {
-                    case "extends":
-                      if (Objects.nonNull(value)) {
-                        parent = value.toString();
-                        if (!parent.isEmpty() && !parent.equals("-")) {
-                          for (RelationType parentType : relationTypes) {
-                            if (parentType.getName().equals(parent)) {
-                              relationType.setParentType(parentType);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "description":
-                      if (Objects.nonNull(value)) {
-                        relationType.setDescription(value.toString());
-                      }
-                      break;
-                    case "properties":
-                      relationType.setProperties(readProperties(value));
-                      break;
-                    case "operations":
-                      relationType.setOperations(readOperations(value));
-                      break;
-                  }
-                }
-              }
-              break;
-          }
-        }
-        relationTypes.add(relationType);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof InvalidPropertyValueException) {
+        throw (InvalidPropertyValueException) cause;
+      } else if (cause instanceof InvalidRelationException) {
+        throw (InvalidRelationException) cause;
       }
-    }
-  }
-
-  /*
-   * Read the components from the given object.
-   * @param obj the object
-   */
-  private void readComponents(Object obj) throws InvalidPropertyValueException {
-    String key, type;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        Component component = new Component();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-          switch (key) {
-            case "name":
-              component.setName(value.toString());
-              break;
-            case "type":
-              if (Objects.nonNull(value)) {
-                type = value.toString();
-                if (!type.isEmpty() && !type.equals("-")) {
-                  for (ComponentType componentType : componentTypes) {
-                    if (componentType.getName().equals(type)) {
-                      component.setType(componentType);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "description":
-              if (Objects.nonNull(value)) {
-                component.setDescription(value.toString());
-              }
-              break;
-            case "properties":
-              component.setProperties(readProperties(value));
-              break;
-            case "operations":
-              component.setOperations(readOperations(value));
-              break;
-            case "artifacts":
-              component.setArtifacts(readArtifacts(value));
-              break;
-            default:
-              component.setName(key);
-              if (value instanceof Map) {
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                for (Map.Entry<String, Object> valueEntry : valueMap.entrySet()) {
-                  key = valueEntry.getKey();
-                  value = valueEntry.getValue();
-
-                  switch (key) {
-                    case "type":
-                      if (Objects.nonNull(value)) {
-                        type = value.toString();
-                        if (!type.isEmpty() && !type.equals("-")) {
-                          for (ComponentType componentType : componentTypes) {
-                            if (componentType.getName().equals(type)) {
-                              component.setType(componentType);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "description":
-                      if (Objects.nonNull(value)) {
-                        component.setDescription(value.toString());
-                      }
-                      break;
-                    case "properties":
-                      component.setProperties(readProperties(value));
-                      break;
-                    case "operations":
-                      component.setOperations(readOperations(value));
-                      break;
-                    case "artifacts":
-                      component.setArtifacts(readArtifacts(value));
-                      break;
-                  }
-                }
-              }
-              break;
-          }
-        }
-        component.setConfidence(Confidence.CONFIRMED);
-        components.add(component);
+      throw new RuntimeException(cause);
+    } finally {
+      for (Future<EdmmParser> result : results) {
+        result.cancel(true);
       }
     }
+    Timer.Sample sample = pipelineMetrics.start();
+    TechnologyAgnosticDeploymentModel tadm = parser.toModel(context.getTransformationProcessId());
+    pipelineMetrics.stop(sample, Stage.BUILD, context.getMetrics());
+    return tadm;
   }
 
   /*
-   * Read the relations from the given object.
-   * @param obj the object
+   * Creates the metrics section of the response of a task, if it is enabled.
+   * @param context the context of the task
+   * @return the metrics of the task, or null
    */
-  private void readRelations(Object obj)
-      throws InvalidRelationException, InvalidPropertyValueException {
-    String key, source, target, type;
-    Object value;
-
-    if (obj instanceof List) {
-      List<Map<String, Object>> list = (List<Map<String, Object>>) obj;
-      for (Map<String, Object> map : list) {
-        Relation relation = new Relation();
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          key = entry.getKey();
-          value = entry.getValue();
-          switch (key) {
-            case "name":
-              relation.setName(value.toString());
-              break;
-            case "type":
-              if (Objects.nonNull(value)) {
-                type = value.toString();
-                if (!type.isEmpty() && !type.equals("-")) {
-                  for (RelationType relationType : relationTypes) {
-                    if (relationType.getName().equals(type)) {
-                      relation.setType(relationType);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "description":
-              if (Objects.nonNull(value)) {
-                relation.setDescription(value.toString());
-              }
-              break;
-            case "source":
-              if (Objects.nonNull(value)) {
-                source = value.toString();
-                if (!source.isEmpty() && !source.equals("-")) {
-                  for (Component component : components) {
-                    if (component.getName().equals(source)) {
-                      relation.setSource(component);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "target":
-              if (Objects.nonNull(value)) {
-                target = value.toString();
-                if (!target.isEmpty() && !target.equals("-")) {
-                  for (Component component : components) {
-                    if (component.getName().equals(target)) {
-                      relation.setTarget(component);
-                      break;
-                    }
-                  }
-                }
-              }
-              break;
-            case "properties":
-              relation.setProperties(readProperties(value));
-              break;
-            case "operations":
-              relation.setOperations(readOperations(value));
-              break;
-            default:
-              relation.setName(key);
-              if (value instanceof Map) {
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                for (Map.Entry<String, Object> valueEntry : valueMap.entrySet()) {
-                  key = valueEntry.getKey();
-                  value = valueEntry.getValue();
-
-                  switch (key) {
-                    case "type":
-                      if (Objects.nonNull(value)) {
-                        type = value.toString();
-                        if (!type.isEmpty() && !type.equals("-")) {
-                          for (RelationType relationType : relationTypes) {
-                            if (relationType.getName().equals(type)) {
-                              relation.setType(relationType);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "description":
-                      if (Objects.nonNull(value)) {
-                        relation.setDescription(value.toString());
-                      }
-                      break;
-                    case "source":
-                      if (Objects.nonNull(value)) {
-                        source = value.toString();
-                        if (!source.isEmpty() && !source.equals("-")) {
-                          for (Component component : components) {
-                            if (component.getName().equals(source)) {
-                              relation.setSource(component);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "target":
-                      if (Objects.nonNull(value)) {
-                        target = value.toString();
-                        if (!target.isEmpty() && !target.equals("-")) {
-                          for (Component component : components) {
-                            if (component.getName().equals(target)) {
-                              relation.setTarget(component);
-                              break;
-                            }
-                          }
-                        }
-                      }
-                      break;
-                    case "properties":
-                      relation.setProperties(readProperties(value));
-                      break;
-                    case "operations":
-                      relation.setOperations(readOperations(value));
-                      break;
-                  }
-                }
-              }
-              break;
-          }
-        }
-        relation.setConfidence(Confidence.CONFIRMED);
-        relations.add(relation);
-      }
-    }
-  }
-
-  /*
-   * Parse the file from the given URL.
-   * @param url the URL
-   */
-  private void parseFile(URL url)
-      throws IOException, InvalidPropertyValueException, InvalidRelationException {
-    BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
-    Map<String, Object> parsedYaml = new Yaml().load(reader);
-    reader.close();
-
-    properties = readProperties(parsedYaml.get("properties"));
-    readComponentTypes(parsedYaml.get("component_types"));
-    readRelationTypes(parsedYaml.get("relation_types"));
-    readComponents(parsedYaml.get("components"));
-    readRelations(parsedYaml.get("relations"));
+  private AnalysisTaskMetrics createMetrics(AnalysisContext context) {
+    return responseMetrics ? AnalysisTaskMetrics.fromTaskMetrics(context.getMetrics()) : null;
   }
 }
@@ -0,0 +1,873 @@
+package ust.tad.visualizationservice.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.*;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.constructor.Construct;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+import ust.tad.visualizationservice.models.tadm.*;
+
+/**
+ * Parser for EDMM models in YAML. A new parser is created for each task, it collects the entities
+ * of all files of the task, which are then combined into one TADM.
+ *
+ * <p>The files are read with the event API of SnakeYAML, so the entities are created directly from
+ * the event stream without loading the whole document into a generic map first. References to types
+ * and components are resolved by name after a file has been read completely.
+ *
+ * <p>The files of a task can also be parsed concurrently by separate parsers, whose results are
+ * then merged in the order of the files.
+ */
+public class EdmmParser {
+
+  private final List<Component> components = new ArrayList<>();
+  private final List<Relation> relations = new ArrayList<>();
+  private final List<ComponentType> componentTypes = new ArrayList<>();
+  private final List<RelationType> relationTypes = new ArrayList<>();
+
+  private final Map<String, ComponentType> componentTypesByName = new HashMap<>();
+  private final Map<String, RelationType> relationTypesByName = new HashMap<>();
+  private final Map<String, Component> componentsByName = new HashMap<>();
+
+  private final Map<ComponentType, String> componentTypeParents = new IdentityHashMap<>();
+  private final Map<RelationType, String> relationTypeParents = new IdentityHashMap<>();
+  private final Map<Component, String> componentTypeReferences = new IdentityHashMap<>();
+  private final Map<Relation, String> relationTypeReferences = new IdentityHashMap<>();
+  private final Map<Relation, String> sourceReferences = new IdentityHashMap<>();
+  private final Map<Relation, String> targetReferences = new IdentityHashMap<>();
+
+  private final Resolver resolver = new Resolver();
+  private final ScalarConstructor scalarConstructor = new ScalarConstructor();
+
+  private List<Property> properties = new ArrayList<>();
+
+  /**
+   * Creates the TADM from the entities parsed so far. References that could not be resolved within
+   * their file, e.g. to entities defined in a file parsed later, are resolved in a second pass.
+   *
+   * @param transformationProcessId the transformation process id
+   * @return the TADM
+   * @throws InvalidRelationException if a relation has the same source and target
+   */
+  public TechnologyAgnosticDeploymentModel toModel(UUID transformationProcessId)
+      throws InvalidRelationException {
+    resolveReferences();
+    return new TechnologyAgnosticDeploymentModel(
+        transformationProcessId, properties, components, relations, componentTypes, relationTypes);
+  }
+
+  /*
+   * Open the file from the given URL, the connection is established and the response headers are
+   * received, the content is read from the returned reader.
+   * @param url the URL
+   * @param connectTimeout the timeout for connecting to the URL in milliseconds
+   * @param readTimeout the timeout for reading from the URL in milliseconds
+   * @return the reader of the content
+   */
+  public static Reader open(URL url, int connectTimeout, int readTimeout) throws IOException {
+    URLConnection connection = url.openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    return new UnicodeReader(connection.getInputStream());
+  }
+
+  /**
+   * Appends the entities of another parser, which parsed a file following the files of this parser.
+   * References that the other parser could not resolve within its file are resolved with the next
+   * pass, where names defined by both parsers refer to the entities of this parser.
+   *
+   * @param other the parser of the following file
+   */
+  public void merge(EdmmParser other) {
+    components.addAll(other.components);
+    relations.addAll(other.relations);
+    componentTypes.addAll(other.componentTypes);
+    relationTypes.addAll(other.relationTypes);
+    other.componentTypesByName.forEach(componentTypesByName::putIfAbsent);
+    other.relationTypesByName.forEach(relationTypesByName::putIfAbsent);
+    other.componentsByName.forEach(componentsByName::putIfAbsent);
+    componentTypeParents.putAll(other.componentTypeParents);
+    relationTypeParents.putAll(other.relationTypeParents);
+    componentTypeReferences.putAll(other.componentTypeReferences);
+    relationTypeReferences.putAll(other.relationTypeReferences);
+    sourceReferences.putAll(other.sourceReferences);
+    targetReferences.putAll(other.targetReferences);
+    properties = other.properties;
+  }
+
+  /*
+   * Parse an EDMM model from the given reader.
+   * @param reader the reader
+   * @throws IOException if the model is not valid YAML or exceeds the limits for aliases
+   */
+  public void parse(Reader reader)
+      throws IOException, InvalidPropertyValueException, InvalidRelationException {
+    try {
+      parseEvents(reader);
+    } catch (YAMLException e) {
+      throw new IOException("Invalid EDMM YAML: " + e.getMessage(), e);
+    }
+  }
+
+  private void parseEvents(Reader reader)
+      throws InvalidPropertyValueException, InvalidRelationException {
+    LoaderOptions loaderOptions = new LoaderOptions();
+    EventReader events =
+        new EventReader(new ParserImpl(new StreamReader(reader), loaderOptions), loaderOptions);
+    List<Property> fileProperties = new ArrayList<>();
+
+    events.next();
+    while (!events.peek().is(Event.ID.StreamEnd)) {
+      events.next();
+      readMapping(
+          events,
+          key -> {
+            switch (key) {
+              case "properties":
+                fileProperties.addAll(readProperties(events));
+                break;
+              case "component_types":
+                readComponentTypes(events);
+                break;
+              case "relation_types":
+                readRelationTypes(events);
+                break;
+              case "components":
+                readComponents(events);
+                break;
+              case "relations":
+                readRelations(events);
+                break;
+              default:
+                skipValue(events);
+                break;
+            }
+          });
+      events.next();
+    }
+
+    properties = fileProperties;
+    resolveReferences();
+  }
+
+  /*
+   * Read the artifacts from the given events.
+   * @param events the events
+   * @return the list of artifacts
+   */
+  private List<Artifact> readArtifacts(EventReader events) throws InvalidPropertyValueException {
+    List<Artifact> artifacts = new ArrayList<>();
+    readSequence(
+        events,
+        () -> {
+          Artifact artifact = new Artifact();
+          readMapping(
+              events,
+              key -> {
+                switch (key) {
+                  case "type":
+                    artifact.setType(readText(events));
+                    break;
+                  case "name":
+                    artifact.setName(readText(events));
+                    break;
+                  case "fileURI":
+                    String fileURI = readText(events);
+                    if (Objects.nonNull(fileURI) && !fileURI.isEmpty() && !fileURI.equals("-")) {
+                      artifact.setFileUri(URI.create(fileURI));
+                    }
+                    break;
+                  default:
+                    skipValue(events);
+                    break;
+                }
+              });
+          artifact.setConfidence(Confidence.CONFIRMED);
+          artifacts.add(artifact);
+        });
+    return artifacts;
+  }
+
+  /*
+   * Read the operations from the given events.
+   * @param events the events
+   * @return the list of operations
+   */
+  private List<Operation> readOperations(EventReader events) throws InvalidPropertyValueException {
+    List<Operation> operations = new ArrayList<>();
+    readSequence(
+        events,
+        () -> {
+          Operation operation = new Operation();
+          readMapping(
+              events,
+              key -> {
+                switch (key) {
+                  case "name":
+                    operation.setName(readText(events));
+                    break;
+                  case "artifacts":
+                    operation.setArtifacts(readArtifacts(events));
+                    break;
+                  default:
+                    skipValue(events);
+                    break;
+                }
+              });
+          operation.setConfidence(Confidence.CONFIRMED);
+          operations.add(operation);
+        });
+    return operations;
+  }
+
+  /*
+   * Read the properties from the given events.
+   * @param events the events
+   * @return the list of properties
+   */
+  private List<Property> readProperties(EventReader events) throws InvalidPropertyValueException {
+    List<Property> properties = new ArrayList<>();
+    readSequence(
+        events,
+        () -> {
+          Property property = new Property();
+          readMapping(
+              events,
+              key -> {
+                switch (key) {
+                  case "key":
+                    property.setKey(readText(events));
+                    break;
+                  case "type":
+                    setTypeAndDefaultValue(property, readText(events));
+                    break;
+                  case "default_value":
+                  case "value":
+                    property.setValue(readValue(events));
+                    break;
+                  case "required":
+                    property.setRequired(Boolean.parseBoolean(readText(events)));
+                    break;
+                  default:
+                    property.setKey(key);
+                    if (events.peek().is(Event.ID.MappingStart)) {
+                      readMapping(
+                          events,
+                          nestedKey -> {
+                            switch (nestedKey) {
+                              case "type":
+                                setTypeAndDefaultValue(property, readText(events));
+                                break;
+                              case "required":
+                                property.setRequired(Boolean.parseBoolean(readText(events)));
+                                break;
+                              default:
+                                skipValue(events);
+                                break;
+                            }
+                          });
+                    } else {
+                      Object value = readValue(events);
+                      setTypeAndDefaultValue(property, typeOf(value));
+                      property.setValue(value);
+                      property.setRequired(false);
+                    }
+                    break;
+                }
+              });
+          property.setConfidence(Confidence.CONFIRMED);
+          properties.add(property);
+        });
+    return properties;
+  }
+
+  /*
+   * Set the type of the property and the default value for this type.
+   * @param property the property
+   * @param type the name of the type
+   */
+  private void setTypeAndDefaultValue(Property property, String type)
+      throws InvalidPropertyValueException {
+    switch (Objects.toString(type, "")) {
+      case "BOOLEAN":
+        property.setType(PropertyType.BOOLEAN);
+        property.setValue(false);
+        break;
+      case "DOUBLE":
+        property.setType(PropertyType.DOUBLE);
+        property.setValue(0.0);
+        break;
+      case "INTEGER":
+        property.setType(PropertyType.INTEGER);
+        property.setValue(0);
+        break;
+      default:
+        property.setType(PropertyType.STRING);
+        property.setValue("");
+        break;
+    }
+  }
+
+  /*
+   * Get the name of the property type matching the class of the given value.
+   * @param value the value
+   * @return the name of the property type
+   */
+  private String typeOf(Object value) {
+    if (value instanceof Boolean) {
+      return "BOOLEAN";
+    } else if (value instanceof Double) {
+      return "DOUBLE";
+    } else if (value instanceof Integer) {
+      return "INTEGER";
+    }
+    return "STRING";
+  }
+
+  /*
+   * Read the description, properties and operations of an entity.
+   * @param events the events
+   * @param key the key of the attribute
+   * @param entity the entity
+   * @return true if the attribute was read, false otherwise
+   */
+  private boolean readEntityAttribute(EventReader events, String key, ModelEntity entity)
+      throws InvalidPropertyValueException {
+    switch (key) {
+      case "description":
+        String description = readText(events);
+        if (Objects.nonNull(description)) {
+          entity.setDescription(description);
+        }
+        return true;
+      case "properties":
+        entity.setProperties(readProperties(events));
+        return true;
+      case "operations":
+        entity.setOperations(readOperations(events));
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /*
+   * Read an entity, given either with a "name" key or as a mapping from its name to its attributes.
+   * @param events the events
+   * @param entity the entity
+   * @param attributes the reader for the attributes of the entity
+   */
+  private void readEntity(EventReader events, ModelEntity entity, AttributeReader attributes)
+      throws InvalidPropertyValueException {
+    readMapping(
+        events,
+        key -> {
+          if (key.equals("name")) {
+            entity.setName(readText(events));
+          } else if (!attributes.read(key)) {
+            entity.setName(key);
+            readMapping(
+                events,
+                nestedKey -> {
+                  if (!attributes.read(nestedKey)) {
+                    skipValue(events);
+                  }
+                });
+          }
+        });
+  }
+
+  /*
+   * Read the component types from the given events.
+   * @param events the events
+   */
+  private void readComponentTypes(EventReader events) throws InvalidPropertyValueException {
+    readSequence(
+        events,
+        () -> {
+          ComponentType componentType = new ComponentType();
+          readEntity(
+              events,
+              componentType,
+              key -> {
+                if (key.equals("extends")) {
+                  addReference(componentTypeParents, componentType, readText(events));
+                  return true;
+                }
+                return readEntityAttribute(events, key, componentType);
+              });
+          componentTypes.add(componentType);
+          index(componentTypesByName, componentType.getName(), componentType);
+        });
+  }
+
+  /*
+   * Read the relation types from the given events.
+   * @param events the events
+   */
+  private void readRelationTypes(EventReader events) throws InvalidPropertyValueException {
+    readSequence(
+        events,
+        () -> {
+          RelationType relationType = new RelationType();
+          readEntity(
+              events,
+              relationType,
+              key -> {
+                if (key.equals("extends")) {
+                  addReference(relationTypeParents, relationType, readText(events));
+                  return true;
+                }
+                return readEntityAttribute(events, key, relationType);
+              });
+          relationTypes.add(relationType);
+          index(relationTypesByName, relationType.getName(), relationType);
+        });
+  }
+
+  /*
+   * Read the components from the given events.
+   * @param events the events
+   */
+  private void readComponents(EventReader events) throws InvalidPropertyValueException {
+    readSequence(
+        events,
+        () -> {
+          Component component = new Component();
+          readEntity(
+              events,
+              component,
+              key -> {
+                switch (key) {
+                  case "type":
+                    addReference(componentTypeReferences, component, readText(events));
+                    return true;
+                  case "artifacts":
+                    component.setArtifacts(readArtifacts(events));
+                    return true;
+                  default:
+                    return readEntityAttribute(events, key, component);
+                }
+              });
+          component.setConfidence(Confidence.CONFIRMED);
+          components.add(component);
+          index(componentsByName, component.getName(), component);
+        });
+  }
+
+  /*
+   * Read the relations from the given events.
+   * @param events the events
+   */
+  private void readRelations(EventReader events) throws InvalidPropertyValueException {
+    readSequence(
+        events,
+        () -> {
+          Relation relation = new Relation();
+          readEntity(
+              events,
+              relation,
+              key -> {
+                switch (key) {
+                  case "type":
+                    addReference(relationTypeReferences, relation, readText(events));
+                    return true;
+                  case "source":
+                    addReference(sourceReferences, relation, readText(events));
+                    return true;
+                  case "target":
+                    addReference(targetReferences, relation, readText(events));
+                    return true;
+                  default:
+                    return readEntityAttribute(events, key, relation);
+                }
+              });
+          relation.setConfidence(Confidence.CONFIRMED);
+          relations.add(relation);
+        });
+  }
+
+  /*
+   * Remember a reference to another entity by its name, unless the name is empty or "-".
+   * @param references the references of the same kind
+   * @param entity the referencing entity
+   * @param name the name of the referenced entity
+   */
+  private <T> void addReference(Map<T, String> references, T entity, String name) {
+    if (Objects.nonNull(name) && !name.isEmpty() && !name.equals("-")) {
+      references.put(entity, name);
+    } else {
+      references.remove(entity);
+    }
+  }
+
+  /*
+   * Resolve the references collected so far by looking up the referenced entities by their name.
+   * Resolved references are removed, the others are kept for the next pass.
+   */
+  private void resolveReferences() throws InvalidRelationException {
+    resolve(componentTypeParents, componentTypesByName, ComponentType::setParentType);
+    resolve(relationTypeParents, relationTypesByName, RelationType::setParentType);
+    resolve(componentTypeReferences, componentTypesByName, Component::setType);
+    resolve(relationTypeReferences, relationTypesByName, Relation::setType);
+    resolve(sourceReferences, componentsByName, Relation::setSource);
+    resolve(targetReferences, componentsByName, Relation::setTarget);
+  }
+
+  /*
+   * Resolve the references of one kind.
+   * @param references the references from the entities to the names of the referenced entities
+   * @param index the entities by their name
+   * @param setter the setter for the referenced entity
+   */
+  private <T, R> void resolve(
+      Map<T, String> references, Map<String, R> index, ReferenceSetter<T, R> setter)
+      throws InvalidRelationException {
+    Iterator<Map.Entry<T, String>> iterator = references.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<T, String> reference = iterator.next();
+      R referenced = index.get(reference.getValue());
+      if (referenced != null && referenced != reference.getKey()) {
+        setter.set(reference.getKey(), referenced);
+        iterator.remove();
+      }
+    }
+  }
+
+  /*
+   * Add an entity to the index by its name. If several entities have the same name, the first one
+   * is referenced.
+   * @param index the index
+   * @param name the name of the entity
+   * @param entity the entity
+   */
+  private <T> void index(Map<String, T> index, String name, T entity) {
+    if (Objects.nonNull(name)) {
+      index.putIfAbsent(name, entity);
+    }
+  }
+
+  /*
+   * Read the entries of a mapping. The handler has to consume the value of each entry. Values that
+   * are not a mapping are skipped, entries with the merge key "<<" are merged into the mapping.
+   * @param events the events
+   * @param handler the handler for the entries
+   */
+  private void readMapping(EventReader events, EntryHandler handler)
+      throws InvalidPropertyValueException {
+    if (!events.peek().is(Event.ID.MappingStart)) {
+      skipValue(events);
+      return;
+    }
+    events.next();
+    while (!events.peek().is(Event.ID.MappingEnd)) {
+      Event keyEvent = events.peek();
+      if (keyEvent instanceof ScalarEvent && resolve((ScalarEvent) keyEvent) == Tag.MERGE) {
+        events.next();
+        if (events.peek().is(Event.ID.SequenceStart)) {
+          readSequence(events, () -> readMapping(events, handler));
+        } else {
+          readMapping(events, handler);
+        }
+      } else {
+        handler.handle(String.valueOf(readValue(events)));
+      }
+    }
+    events.next();
+  }
+
+  /*
+   * Read the items of a sequence. The handler has to consume each item. Values that are not a
+   * sequence are skipped.
+   * @param events the events
+   * @param handler the handler for the items
+   */
+  private void readSequence(EventReader events, ItemHandler handler)
+      throws InvalidPropertyValueException {
+    if (!events.peek().is(Event.ID.SequenceStart)) {
+      skipValue(events);
+      return;
+    }
+    events.next();
+    while (!events.peek().is(Event.ID.SequenceEnd)) {
+      handler.handle();
+    }
+    events.next();
+  }
+
+  /*
+   * Read a value as text.
+   * @param events the events
+   * @return the text, or null if the value is null
+   */
+  private String readText(EventReader events) {
+    return Objects.toString(readValue(events), null);
+  }
+
+  /*
+   * Read a value as Java object, the same way SnakeYAML would construct it.
+   * @param events the events
+   * @return the value
+   */
+  private Object readValue(EventReader events) {
+    Event event = events.next();
+    if (event instanceof ScalarEvent) {
+      ScalarEvent scalar = (ScalarEvent) event;
+      return scalarConstructor.construct(
+          new ScalarNode(
+              resolve(scalar),
+              scalar.getValue(),
+              scalar.getStartMark(),
+              scalar.getEndMark(),
+              scalar.getScalarStyle()));
+    } else if (event.is(Event.ID.SequenceStart)) {
+      List<Object> list = new ArrayList<>();
+      while (!events.peek().is(Event.ID.SequenceEnd)) {
+        list.add(readValue(events));
+      }
+      events.next();
+      return list;
+    } else if (event.is(Event.ID.MappingStart)) {
+      Map<Object, Object> map = new LinkedHashMap<>();
+      while (!events.peek().is(Event.ID.MappingEnd)) {
+        map.put(readValue(events), readValue(events));
+      }
+      events.next();
+      return map;
+    }
+    return null;
+  }
+
+  /*
+   * Skip the next value.
+   * @param events the events
+   */
+  private void skipValue(EventReader events) {
+    int depth = 0;
+    do {
+      Event event = events.next();
+      if (event instanceof CollectionStartEvent) {
+        depth++;
+      } else if (event instanceof CollectionEndEvent) {
+        depth--;
+      }
+    } while (depth > 0);
+  }
+
+  /*
+   * Resolve the tag of a scalar, like the SnakeYAML composer does.
+   * @param scalar the scalar event
+   * @return the tag
+   */
+  private Tag resolve(ScalarEvent scalar) {
+    String tag = scalar.getTag();
+    if (tag == null || tag.equals("!")) {
+      return resolver.resolve(
+          NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar());
+    }
+    return new Tag(tag);
+  }
+
+  @FunctionalInterface
+  private interface EntryHandler {
+    void handle(String key) throws InvalidPropertyValueException;
+  }
+
+  @FunctionalInterface
+  private interface ItemHandler {
+    void handle() throws InvalidPropertyValueException;
+  }
+
+  @FunctionalInterface
+  private interface AttributeReader {
+    boolean read(String key) throws InvalidPropertyValueException;
+  }
+
+  @FunctionalInterface
+  private interface ReferenceSetter<T, R> {
+    void set(T entity, R referenced) throws InvalidRelationException;
+  }
+
+  /** Constructs scalar values with the standard constructors of SnakeYAML. */
+  private static class ScalarConstructor extends SafeConstructor {
+
+    ScalarConstructor() {
+      super(new LoaderOptions());
+    }
+
+    Object construct(ScalarNode node) {
+      Construct construct = yamlConstructors.get(node.getTag());
+      if (construct == null) {
+        return node.getValue();
+      }
+      return construct.construct(node);
+    }
+  }
+
+  /**
+   * Reads the events of a YAML stream with one event lookahead. Aliases are replaced by the
+   * recorded events of their anchored node. A recorded node keeps the aliases it contains instead
+   * of their events, so that nested aliases do not multiply the recorded events. As with the
+   * SnakeYAML composer, the number of aliases of collections is limited by the loader options, each
+   * replay of a nested alias counts, and the total number of replayed events is limited.
+   */
+  private static class EventReader {
+
+    /** The maximum number of events replayed for the aliases of a file. */
+    private static final long MAX_REPLAYED_EVENTS = 1_000_000;
+
+    private final Parser parser;
+    private final int maxAliasesForCollections;
+    private final Deque<Iterator<Event>> replays = new ArrayDeque<>();
+    private final Map<String, List<Event>> anchors = new HashMap<>();
+    private final List<Recording> recordings = new ArrayList<>();
+    private Event peeked;
+    private int collectionAliases;
+    private long replayedEvents;
+
+    EventReader(Parser parser, LoaderOptions loaderOptions) {
+      this.parser = parser;
+      this.maxAliasesForCollections = loaderOptions.getMaxAliasesForCollections();
+    }
+
+    Event peek() {
+      if (peeked == null) {
+        peeked = read();
+      }
+      return peeked;
+    }
+
+    Event next() {
+      Event event = peek();
+      peeked = null;
+      return event;
+    }
+
+    private Event read() {
+      while (true) {
+        Event event;
+        boolean replayed = !replays.isEmpty();
+        if (!replayed) {
+          event = parser.getEvent();
+        } else if (replays.peek().hasNext()) {
+          event = replays.peek().next();
+        } else {
+          replays.pop();
+          continue;
+        }
+        if (event.is(Event.ID.Alias)) {
+          List<Event> recorded = resolve(event);
+          if (recorded.get(0) instanceof CollectionStartEvent
+              && ++collectionAliases > maxAliasesForCollections) {
+            throw new YAMLException(
+                "Number of aliases for non-scalar nodes exceeds the specified max="
+                    + maxAliasesForCollections);
+          }
+          if (!replayed) {
+            record(new ResolvedAlias(event, recorded));
+          }
+          replays.push(recorded.iterator());
+          continue;
+        }
+        if (!replayed) {
+          record(event);
+        } else if (++replayedEvents > MAX_REPLAYED_EVENTS) {
+          throw new YAMLException(
+              "Number of events replayed for aliases exceeds the max=" + MAX_REPLAYED_EVENTS);
+        }
+        return event;
+      }
+    }
+
+    /*
+     * Returns the recorded events of the node an alias refers to. The aliases within a recorded
+     * node were resolved when they were recorded, as the anchor may be defined again later.
+     */
+    private List<Event> resolve(Event alias) {
+      if (alias instanceof ResolvedAlias) {
+        return ((ResolvedAlias) alias).events;
+      }
+      String anchor = ((AliasEvent) alias).getAnchor();
+      List<Event> recorded = anchors.get(anchor);
+      if (recorded == null) {
+        throw new YAMLException("Found undefined alias " + anchor);
+      }
+      return recorded;
+    }
+
+    private void record(Event event) {
+      int delta = 0;
+      if (event instanceof CollectionStartEvent) {
+        delta = 1;
+      } else if (event instanceof CollectionEndEvent) {
+        delta = -1;
+      }
+      Iterator<Recording> iterator = recordings.iterator();
+      while (iterator.hasNext()) {
+        Recording recording = iterator.next();
+        recording.events.add(event);
+        recording.depth += delta;
+        if (recording.depth == 0) {
+          anchors.put(recording.anchor, recording.events);
+          iterator.remove();
+        }
+      }
+      if (event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null) {
+        Recording recording = new Recording(((NodeEvent) event).getAnchor());
+        recording.events.add(event);
+        recording.depth = delta;
+        if (recording.depth == 0) {
+          anchors.put(recording.anchor, recording.events);
+        } else {
+          recordings.add(recording);
+        }
+      }
+    }
+  }
+
+  /** An alias within a recorded node, with the events of the node it referred to. */
+  private static class ResolvedAlias extends Event {
+
+    private final List<Event> events;
+
+    ResolvedAlias(Event alias, List<Event> events) {
+      super(alias.getStartMark(), alias.getEndMark());
+      this.events = events;
+    }
+
+    @Override
+    public Event.ID getEventId() {
+      return Event.ID.Alias;
+    }
+  }
+
+  private static class Recording {
+
+    private final String anchor;
+    private final List<Event> events = new ArrayList<>();
+    private int depth;
+
+    Recording(String anchor) {
+      this.anchor = anchor;
+    }
+  }
+}
@@ -1,465 +1,600 @@
 package ust.tad.visualizationservice.analysis;
 
-import java.io.BufferedReader;
-import java.io.FileWriter;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import ust.tad.visualizationservice.layout.ComponentPacker;
+import ust.tad.visualizationservice.layout.ForceLayoutEngine;
+import ust.tad.visualizationservice.layout.GraphvizBatcher;
+import ust.tad.visualizationservice.layout.IncrementalLayoutEngine;
+import ust.tad.visualizationservice.layout.LayeredLayoutEngine;
+import ust.tad.visualizationservice.layout.Layout;
+import ust.tad.visualizationservice.layout.LayoutCache;
+import ust.tad.visualizationservice.layout.LayoutGraph;
+import ust.tad.visualizationservice.layout.LayoutOptions;
+import ust.tad.visualizationservice.layout.LayoutStrategy;
+import ust.tad.visualizationservice.layout.LayoutStrategySelector;
+import ust.tad.visualizationservice.layout.LayoutTimeoutException;
+import ust.tad.visualizationservice.layout.PlainLayout;
+import ust.tad.visualizationservice.layout.PriorLayout;
+import ust.tad.visualizationservice.layout.RelationIndex;
+import ust.tad.visualizationservice.metrics.PipelineMetrics;
+import ust.tad.visualizationservice.metrics.PipelineMetrics.Stage;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
 import ust.tad.visualizationservice.models.tadm.*;
+import ust.tad.visualizationservice.tosca.ArtifactSink;
+import ust.tad.visualizationservice.tosca.ServiceTemplateReader;
+import ust.tad.visualizationservice.tosca.ToscaWriter;
 
 @Service
 public class LayoutService {
 
   private static final Logger LOG = LoggerFactory.getLogger(LayoutService.class);
 
-  private final Map<String, int[]> layout = new HashMap<>();
-  private final String regex = ".*\\$\\(.*\\).*";
+  @Autowired private LayeredLayoutEngine layeredLayoutEngine;
 
-  private List<Component> components = new ArrayList<>();
-  private List<ComponentType> componentTypes = new ArrayList<>();
-  private List<Relation> relations = new ArrayList<>();
+  @Autowired private ForceLayoutEngine forceLayoutEngine;
 
-  private double dpi;
-  private String flatten;
-  private double[] graphSize;
-  private double[] nodeSize;
+  @Autowired private IncrementalLayoutEngine incrementalLayoutEngine;
 
-  /*
-   * Generates the layout of the components and relations in the TADM.
-   * @param tadm The TechnologyAgnosticDeploymentModel to generate the layout for.
-   */
-  public void generateLayout(
-      TechnologyAgnosticDeploymentModel tadm, double dpi, String flatten, int width, int height) {
-    components = tadm.getComponents();
-    componentTypes = tadm.getComponentTypes();
-    relations = tadm.getRelations();
-    UUID transformationProcessId = tadm.getTransformationProcessId();
+  @Autowired private LayoutCache layoutCache;
 
-    this.dpi = dpi;
-    this.flatten = flatten;
-    graphSize =
-        new double[] {convertPixelsToInches(width * 0.82), convertPixelsToInches(height * 0.79)};
-    nodeSize = new double[] {convertPixelsToInches(225), convertPixelsToInches(60)};
+  @Autowired private LayoutStrategySelector layoutStrategySelector;
 
-    String path = "/var/repository/graphviz/";
-    String file = transformationProcessId.toString() + ".dot";
+  @Autowired private GraphvizBatcher graphvizBatcher;
 
-    try {
-      Files.createDirectories(Paths.get(path));
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+  @Autowired private ToscaWriter toscaWriter;
 
-    createDotFile(components, relations, path + file);
-    callGraphVIZ(path + file);
+  @Autowired private ArtifactSink artifactSink;
 
-    createNodeTypes(componentTypes, transformationProcessId);
-    createServiceTemplate(components, relations, transformationProcessId);
-    clearVariables();
-  }
+  @Autowired private ThreadPoolTaskExecutor artifactWriteTaskExecutor;
+
+  @Autowired private ThreadPoolTaskExecutor layoutPartTaskExecutor;
+
+  @Autowired private PipelineMetrics pipelineMetrics;
 
   /*
-   * Creates a .dot file from the components and relations in the TADM.
-   * @param components The components in the TADM.
-   * @param relations The relations in the TADM.
-   * @param path The path to save the .dot file to.
+   * The artifact writes that are queued or running, by the ID of their transformation process. A
+   * following task of the process waits for them before it reads the previous layout.
    */
-  private void createDotFile(List<Component> components, List<Relation> relations, String path) {
-    List<String> nodes = new ArrayList<>();
-    List<String> rankSame = new ArrayList<>();
+  private final Map<UUID, CompletableFuture<LayoutStrategy>> pendingWrites =
+      new ConcurrentHashMap<>();
 
-    Map<String, List<String>> graph = new HashMap<>();
-    Map<String, List<String>> subgraph = new HashMap<>();
+  @Value("${layout.components.split:true}")
+  private boolean splitComponents;
 
-    for (Component component : components) {
-      nodes.add("    \"" + component.getName() + "\"\n");
-    }
+  @Value("${layout.components.max-dot-invocations:4}")
+  private int maxDotInvocations;
 
-    for (Relation relation : relations) {
-      String relationType = relation.getType().getName();
-      String source = relation.getSource().getName();
-      String target = relation.getTarget().getName();
-
-      if (relationType.equals("HostedOn")) {
-        if (graph.containsKey(source)) {
-          graph.get(source).add(target);
-        } else {
-          List<String> targets = new ArrayList<>();
-          targets.add(target);
-          graph.put(source, targets);
-        }
-      } else if (relationType.equals("ConnectsTo")) {
-        if (subgraph.containsKey(source)) {
-          subgraph.get(source).add(target);
-          if (!rankSame.contains(source)) {
-            rankSame.add(source);
-          }
-        } else {
-          List<String> targets = new ArrayList<>();
-          targets.add(target);
-          subgraph.put(source, targets);
-        }
-      }
-    }
+  @Value("${layout.incremental.enabled:true}")
+  private boolean incrementalLayout;
+
+  @Value("${layout.incremental.max-changed-ratio:0.5}")
+  private double maxChangedRatio;
+
+  @Value("${layout.deadline-ms:60000}")
+  private long layoutDeadline;
 
-    try (FileWriter writer = new FileWriter(path)) {
-      writer.write("strict digraph {\n");
-      if (flatten.equals("true")) {
-        writer.write(
-            "    graph [dpi="
-                + dpi
-                + ", rank=\"same\", ratio=\"compress\", size=\""
-                + graphSize[0]
-                + ","
-                + graphSize[1]
-                + "\", splines=\"ortho\"]\n");
+  @Value("${graphviz.write-dot-file:false}")
+  private boolean writeDotFile;
+
+  /*
+   * Generates the layout of the components and relations in the TADM. A cached layout of the same
+   * graph and options is used as is, otherwise if the transformation process was laid out before,
+   * the previous layout is updated incrementally and cached. The TOSCA artifacts are rendered on
+   * the calling thread and then written to the artifact sink asynchronously.
+   * @param tadm The TechnologyAgnosticDeploymentModel to generate the layout for.
+   * @param context The context of the task, containing the layout options.
+   * @return A future that is completed with the strategy of the layout once the artifact sink has
+   * stored the artifacts durably.
+   */
+  public CompletableFuture<LayoutStrategy> generateLayout(
+      TechnologyAgnosticDeploymentModel tadm, AnalysisContext context) {
+    List<Component> components = tadm.getComponents();
+    List<ComponentType> componentTypes = tadm.getComponentTypes();
+    List<Relation> relations = tadm.getRelations();
+    UUID transformationProcessId = tadm.getTransformationProcessId();
+    LayoutOptions options = context.getLayoutOptions();
+    TaskMetrics metrics = context.getMetrics();
+
+    RelationIndex relationIndex = RelationIndex.fromModel(relations);
+    LayoutGraph graph = LayoutGraph.fromModel(components, relationIndex);
+    Timer.Sample sample = pipelineMetrics.start();
+    String fingerprint = LayoutCache.fingerprint(graph, options);
+    Layout layout = layoutCache.get(fingerprint);
+    if (layout != null) {
+      LOG.info("Using cached layout {}", fingerprint);
+      metrics.setCacheHit(true);
+    } else {
+      layout = computeIncrementalLayout(graph, options, transformationProcessId);
+      if (layout != null) {
+        LOG.info("Updated the previous layout of {} incrementally", transformationProcessId);
+        metrics.setIncremental(true);
+        layoutCache.put(fingerprint, layout);
       } else {
-        writer.write(
-            "    graph [dpi="
-                + dpi
-                + ", ratio=\"compress\", size=\""
-                + graphSize[0]
-                + ","
-                + graphSize[1]
-                + "\", splines=\"ortho\"]\n");
-      }
-      writer.write(
-          "    node [fixedsize=\"true\", shape=\"polygon\",  width="
-              + nodeSize[0]
-              + ", height="
-              + nodeSize[1]
-              + "]\n");
-      writer.write("    edge [label=\"HostedOn\", style=\"solid\"]\n");
-      for (String node : nodes) {
-        writer.write(node);
-      }
-      for (Map.Entry<String, List<String>> entry : graph.entrySet()) {
-        String source = entry.getKey();
-        List<String> targets = entry.getValue();
-        if (targets.size() > 1) {
-          writer.write("    \"" + source + "\" -> { ");
-          for (String target : targets) {
-            writer.write("\"" + target + "\" ");
-          }
-          writer.write("} [weight=2]\n");
-        } else {
-          writer.write("    \"" + source + "\" -> \"" + targets.get(0) + "\"\n");
-        }
+        layout = computeCachedLayout(graph, options, fingerprint, metrics);
       }
-      writer.write("    subgraph {\n");
-      writer.write("        edge [label=\"ConnectsTo\", style=\"dashed\"]\n");
-      if (flatten.equals("partial")) {
-        writer.write("        { rank=\"same\" ");
-        for (String node : rankSame) {
-          writer.write("\"" + node + "\" ");
-        }
-        writer.write("}\n");
-      }
-      for (Map.Entry<String, List<String>> entry : subgraph.entrySet()) {
-        String source = entry.getKey();
-        List<String> targets = entry.getValue();
-        if (targets.size() > 1) {
-          writer.write("        \"" + source + "\" -> { ");
-          for (String target : targets) {
-            writer.write("\"" + target + "\" ");
-          }
-          writer.write("} [weight=2]\n");
-        } else {
-          writer.write("        \"" + source + "\" -> \"" + targets.get(0) + "\"\n");
-        }
-      }
-      writer.write("    }\n}");
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
+    pipelineMetrics.stop(sample, Stage.LAYOUT, metrics);
+
+    Map<String, byte[]> artifacts = new LinkedHashMap<>();
+    sample = pipelineMetrics.start();
+    artifacts.put(
+        serviceTemplatePath(transformationProcessId),
+        createServiceTemplate(
+            components,
+            relationIndex,
+            layout,
+            LayoutCache.fingerprint(options),
+            transformationProcessId));
+    pipelineMetrics.stop(sample, Stage.SERVICE_TEMPLATE, metrics);
+    sample = pipelineMetrics.start();
+    artifacts.putAll(createNodeTypes(componentTypes, transformationProcessId));
+    pipelineMetrics.stop(sample, Stage.NODE_TYPES, metrics);
+    if (writeDotFile) {
+      artifacts.put(
+          "graphviz/" + transformationProcessId + ".dot",
+          createDotFile(graph, options, layoutStrategySelector.select(graph, options)));
+    }
+
+    LayoutStrategy strategy = layout.getStrategy();
+    CompletableFuture<LayoutStrategy> written =
+        CompletableFuture.supplyAsync(
+            () -> {
+              Timer.Sample write = pipelineMetrics.start();
+              try {
+                artifactSink.write(transformationProcessId, artifacts);
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+              pipelineMetrics.stop(write, Stage.ARTIFACT_WRITE, metrics);
+              pipelineMetrics.recordArtifactBytes(
+                  artifacts.values().stream().mapToLong(content -> content.length).sum());
+              return strategy;
+            },
+            artifactWriteTaskExecutor);
+    pendingWrites.put(transformationProcessId, written);
+    written.whenComplete((result, e) -> pendingWrites.remove(transformationProcessId, written));
+    return written;
   }
 
   /*
-   * Calls the GraphVIZ tool to generate the layout of the components and relations in the TADM.
-   * @param path The path to the .dot file to generate the layout for.
-   * @return A map of the component names and their coordinates in the layout.
+   * Computes the layout of the graph with the strategy selected for the size of the graph and
+   * caches it. If the layout does not finish before the deadline, the layered layout engine is
+   * used instead and its layout is not cached.
+   * @param graph The layout graph built from the components and relations in the TADM.
+   * @param options The layout options of the task.
+   * @param fingerprint The fingerprint of the graph and the layout options in the layout cache.
+   * @param metrics The metrics of the task.
+   * @return The pixel coordinates of the components and edge routes.
    */
-  private void callGraphVIZ(String path) {
-    Map<String, double[]> output = new HashMap<>();
-    String command = "dot -Tplain " + path;
-
-    ProcessBuilder processBuilder = new ProcessBuilder();
-    processBuilder.command("sh", "-c", command);
-
+  private Layout computeCachedLayout(
+      LayoutGraph graph, LayoutOptions options, String fingerprint, TaskMetrics metrics) {
+    LayoutStrategy strategy = layoutStrategySelector.select(graph, options);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(layoutDeadline);
+    PlainLayout output;
     try {
-      Process process = processBuilder.start();
-      BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-      double maxY = 0;
-      String line;
-
-      while ((line = reader.readLine()) != null) {
-        if (line.startsWith("node")) {
-          String[] splits = line.split(" ");
-          String node = splits[1].replaceAll("\"", "");
-          double[] coords = {Double.parseDouble(splits[2]), Double.parseDouble(splits[3])};
-          maxY = Math.max(coords[1], maxY);
-          output.put(node, coords);
-        }
-      }
-
-      for (Map.Entry<String, double[]> entry : output.entrySet()) {
-        String node = entry.getKey();
-        double[] coords = entry.getValue();
-        int x = convertInchesToPixels(coords[0]);
-        int y = convertInchesToPixels(Math.abs(coords[1] - maxY)) + 100;
-        layout.put(node, new int[] {x, y});
-      }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+      output = computeLayout(graph, options, strategy, deadline, metrics);
+    } catch (LayoutTimeoutException e) {
+      LOG.warn(
+          "{} with the {} strategy after {} ms, falling back to the layered layout engine",
+          e.getMessage(),
+          strategy,
+          layoutDeadline);
+      strategy = strategy.fallback();
+      output = computeLayout(graph, options, strategy, deadline, metrics);
+    }
+    Layout layout = applyLayout(output.getNodes(), output.getEdges(), options, strategy);
+    // A later task of the same graph tries the selected strategy again instead of reusing the
+    // layout of the fallback
+    if (strategy.getFallbackFrom() == null) {
+      layoutCache.put(fingerprint, layout);
     }
+    return layout;
   }
 
   /*
-   * Creates the node types for the components in the TADM.
-   * @param componentTypes The component types in the TADM.
+   * Updates the layout stored in the service template of a previous task of the transformation
+   * process. Unchanged nodes keep their position, only added and re-connected nodes are placed.
+   * The previous layout is only reused if it was computed with the same layout options. If the
+   * artifacts of the previous task are still being written, they are waited for first.
+   * @param graph The layout graph built from the components and relations in the TADM.
+   * @param options The layout options of the task.
    * @param id The ID of the transformation process.
+   * @return The updated layout, or null if there is no previous layout, its layout options
+   * differ or too much changed.
    */
-  private void createNodeTypes(List<ComponentType> componentTypes, UUID id) {
-    for (ComponentType componentType : componentTypes) {
-      String nodeTypesPath =
-          "/var/repository/nodetypes/"
-              + id.toString()
-              + ".ust.tad.nodetypes/"
-              + componentType.getName()
-              + "/";
-
+  private Layout computeIncrementalLayout(LayoutGraph graph, LayoutOptions options, UUID id) {
+    if (!incrementalLayout) {
+      return null;
+    }
+    CompletableFuture<LayoutStrategy> pending = pendingWrites.get(id);
+    if (pending != null) {
       try {
-        Files.createDirectories(Paths.get(nodeTypesPath));
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+        pending.get(layoutDeadline, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } catch (ExecutionException | TimeoutException e) {
+        LOG.warn("The previous layout of {} was not written: {}", id, e.getMessage());
+        return null;
       }
-
-      try (FileWriter writer = new FileWriter(nodeTypesPath + "NodeType.tosca")) {
-        writer.write("tosca_definitions_version: tosca_simple_yaml_1_3\n\n");
-        writer.write("node_types:\n");
-        writer.write("  " + id + ".ust.tad.nodetypes." + componentType.getName() + ":\n");
-        writer.write("    derived_from: tosca.nodes.Root\n");
-        writer.write("    metadata:\n");
-        writer.write("      targetNamespace: " + id + ".ust.tad.nodetypes\n");
-        writer.write("      abstract: \"false\"\n");
-        writer.write("      final: \"false\"\n");
-        writer.write("    properties:\n");
-        List<Property> properties = componentType.getProperties();
-        for (Property property : properties) {
-          String key = property.getKey();
-          String value = property.getValue().toString();
-          if (isNumeric(key)) {
-            key = "\"" + key + "\"";
-          }
-          if (value.matches(regex)) {
-            value = "\"" + value + "\"";
-          }
-          writer.write("      " + key + ":\n");
-          writer.write("        type: " + property.getType().name() + "\n");
-          writer.write("        required: " + property.getRequired() + "\n");
-          writer.write("        default: " + value + "\n");
-        }
-        writer.write("    requirements:\n");
-        writer.write("      - host:\n");
-        writer.write("          capability: tosca.capabilities.Node\n");
-        writer.write("          relationship: tosca.relationships.HostedOn\n");
-        writer.write("          occurrences: [ 1, 1 ]\n");
-        writer.write("    interfaces:\n");
-        writer.write("      Standard:\n");
-        writer.write("        type: tosca.interfaces.node.lifecycle.Standard\n");
-        writer.write("        operations:\n");
-        writer.write("          stop:\n");
-        writer.write("            description: The standard stop operation\n");
-        writer.write("          start:\n");
-        writer.write("            description: The standard start operation\n");
-        writer.write("          create:\n");
-        writer.write("            description: The standard create operation\n");
-        writer.write("          configure:\n");
-        writer.write("            description: The standard configure operation\n");
-        writer.write("          delete:\n");
-        writer.write("            description: The standard delete operation\n");
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+    }
+    PriorLayout prior;
+    try {
+      byte[] serviceTemplate = artifactSink.read(id, serviceTemplatePath(id));
+      if (serviceTemplate == null) {
+        return null;
       }
+      prior =
+          ServiceTemplateReader.read(
+              new InputStreamReader(
+                  new ByteArrayInputStream(serviceTemplate), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      LOG.warn("Reading the previous layout of {} failed: {}", id, e.getMessage());
+      return null;
     }
+    if (!LayoutCache.fingerprint(options).equals(prior.getOptionsFingerprint())) {
+      LOG.info("The layout options of {} changed, not reusing the previous layout", id);
+      return null;
+    }
+    return incrementalLayoutEngine.layout(graph, prior, options, maxChangedRatio);
+  }
+
+  private String serviceTemplatePath(UUID id) {
+    return "servicetemplates/ust.tad.servicetemplates/" + id + "/ServiceTemplate.tosca";
   }
 
   /*
-   * Creates the service template for the components and relations in the TADM.
-   * @param components The components in the TADM.
-   * @param relations The relations in the TADM.
-   * @param id The ID of the transformation process.
+   * Computes the layout of the graph. If the graph consists of several connected components and is
+   * not flattened, they are laid out in parallel on the layout part executor and then packed into
+   * the size of the graph. With GraphVIZ, the components are distributed into a bounded number of
+   * groups, one dot invocation each.
+   * @param graph The layout graph built from the components and relations in the TADM.
+   * @param options The layout options of the task.
+   * @param strategy The layout strategy selected for the graph.
+   * @param deadline The value of System.nanoTime() at which the layout must be finished.
+   * @param metrics The metrics of the task.
+   * @return The coordinates of the nodes and edge routes in inches.
    */
-  private void createServiceTemplate(
-      List<Component> components, List<Relation> relations, UUID id) {
-    Map<String, Node> nodes = new HashMap<>();
-    Map<String, Integer> typeCount = new HashMap<>();
+  PlainLayout computeLayout(
+      LayoutGraph graph,
+      LayoutOptions options,
+      LayoutStrategy strategy,
+      long deadline,
+      TaskMetrics metrics) {
+    // With flatten, nodes of different components are placed on the same ranks, so the graph is
+    // laid out as a whole
+    List<List<String>> connectedComponents =
+        splitComponents && options.getFlatten().equals("false")
+            ? graph.getConnectedComponents()
+            : Collections.emptyList();
+    if (connectedComponents.size() <= 1) {
+      return computePartLayout(graph, options, strategy, deadline, metrics);
+    }
 
-    for (Component component : components) {
-      Node node = new Node();
-      int count = 0;
+    List<List<String>> parts =
+        strategy.getEngine().equals("dot")
+            ? ComponentPacker.group(connectedComponents, maxDotInvocations)
+            : connectedComponents;
+    List<Future<PlainLayout>> results = new ArrayList<>();
+    for (LayoutGraph part : graph.subgraphs(parts)) {
+      results.add(
+          layoutPartTaskExecutor.submit(
+              () -> computePartLayout(part, options, strategy, deadline, metrics)));
+    }
 
-      try {
-        node.type = component.getType().getName();
-      } catch (Exception e) {
-        LOG.info("Component type of the component {} is not defined.", component.getName());
+    PlainLayout combined = new PlainLayout();
+    try {
+      for (Future<PlainLayout> result : results) {
+        PlainLayout layout = result.get();
+        combined.getNodes().putAll(layout.getNodes());
+        combined.getEdges().putAll(layout.getEdges());
       }
-
-      if (typeCount.containsKey(node.type)) {
-        count = typeCount.get(node.type) + 1;
-        typeCount.replace(node.type, count);
-      } else {
-        typeCount.put(node.type, count);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
       }
-
-      node.displayName = component.getName();
-      node.name = component.getName() + "_" + count;
-      node.properties = component.getProperties();
-
-      int[] coords = layout.get(node.displayName);
-      node.x = coords[0];
-      node.y = coords[1];
-
-      List<Requirement> requirements = new ArrayList<>();
-      for (Relation relation : relations) {
-        Requirement requirement = new Requirement();
-        if (relation.getSource().getName().equals(node.displayName)) {
-          requirement.type = relation.getType().getName();
-          requirement.node = relation.getTarget().getName(); // Target node displayName
-          requirement.relationship = relation.getName();
-          requirement.capability = "feature";
-          requirements.add(requirement);
-        }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      for (Future<PlainLayout> result : results) {
+        result.cancel(true);
       }
-      node.requirements = requirements;
-      nodes.put(node.displayName, node);
     }
+    LOG.info(
+        "Laid out {} connected components in {} parts", connectedComponents.size(), parts.size());
+    return ComponentPacker.pack(
+        connectedComponents, combined, options.getNodeSize(), options.getGraphSize());
+  }
 
-    String serviceTemplatePath =
-        "/var/repository/servicetemplates/ust.tad.servicetemplates/" + id.toString() + "/";
+  /*
+   * Computes the layout of a graph with the layout engine of the strategy.
+   * @param graph The layout graph or a part of it.
+   * @param options The layout options of the task.
+   * @param strategy The layout strategy selected for the graph.
+   * @param deadline The value of System.nanoTime() at which the layout must be finished.
+   * @param metrics The metrics of the task.
+   * @return The coordinates of the nodes and edge routes in inches.
+   */
+  private PlainLayout computePartLayout(
+      LayoutGraph graph,
+      LayoutOptions options,
+      LayoutStrategy strategy,
+      long deadline,
+      TaskMetrics metrics) {
+    if (strategy.getEngine().equals("layered")) {
+      PlainLayout output = new PlainLayout();
+      output
+          .getNodes()
+          .putAll(
+              layeredLayoutEngine.layout(
+                  graph, options.getFlatten(), options.getNodeSize(), options.getGraphSize()));
+      return output;
+    } else if (strategy.getEngine().equals("force")) {
+      PlainLayout output = new PlainLayout();
+      output.getNodes().putAll(forceLayoutEngine.layout(graph, options.getNodeSize(), deadline));
+      return output;
+    }
+    return callGraphVIZ(graph, options, strategy, deadline, metrics);
+  }
 
-    try {
-      Files.createDirectories(Paths.get(serviceTemplatePath));
+  /*
+   * Creates the DOT text of the layout graph of the TADM. It is only stored for debugging, the
+   * layout itself is computed from the DOT text streamed to GraphVIZ.
+   * @param graph The layout graph built from the components and relations in the TADM.
+   * @param options The layout options of the task.
+   * @param strategy The layout strategy selected for the graph.
+   * @return The DOT text.
+   */
+  byte[] createDotFile(LayoutGraph graph, LayoutOptions options, LayoutStrategy strategy) {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (Writer writer =
+        new BufferedWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8))) {
+      writeDot(graph, options, strategy, null, writer);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    return content.toByteArray();
+  }
 
-    try (FileWriter writer = new FileWriter(serviceTemplatePath + "ServiceTemplate.tosca")) {
-      writer.write("tosca_definitions_version: tosca_simple_yaml_1_3\n\n");
-      writer.write("metadata:\n");
-      writer.write("  targetNamespace: \"ust.tad.servicetemplates\"\n");
-      writer.write("  name: " + id + "\n");
-      writer.write("topology_template:\n");
-      writer.write("  node_templates:\n");
-      for (Node node : nodes.values()) {
-        writer.write("    " + node.name + ":\n");
-        if (node.type == null) {
-          writer.write("      type: tosca.nodes.Root\n");
-        } else {
-          writer.write("      type: " + id + ".ust.tad.nodetypes." + node.type + "\n");
-        }
-        writer.write("      metadata:\n");
-        writer.write("        x: '" + node.x + "'\n");
-        writer.write("        y: '" + node.y + "'\n");
-        writer.write("        displayName: " + node.displayName + "\n");
-        writer.write("      properties:\n");
-        for (Property property : node.properties) {
-          String key = property.getKey();
-          String value = property.getValue().toString();
-          if (isNumeric(key)) {
-            key = "\"" + key + "\"";
-          }
-          if (value.matches(regex)) {
-            value = "\"" + value + "\"";
-          }
-          writer.write("        " + key + ": " + value + "\n");
-        }
-        if (!node.requirements.isEmpty()) {
-          writer.write("      requirements:\n");
-          for (Requirement requirement : node.requirements) {
-            if (requirement.type.equals("HostedOn")) {
-              writer.write("        - host:\n");
-            } else if (requirement.type.equals("ConnectsTo")) {
-              writer.write("        - connect:\n");
-            }
-            writer.write("            node: " + nodes.get(requirement.node).name + "\n");
-            writer.write("            relationship: " + requirement.relationship + "\n");
-            writer.write("            capability: " + requirement.capability + "\n");
-          }
+  /*
+   * Writes the layout graph of the TADM in the DOT language.
+   * @param graph The layout graph built from the components and relations in the TADM.
+   * @param options The layout options of the task.
+   * @param strategy The layout strategy, determining the spline mode, rank separation and ratio.
+   * @param name The name of the graph, or null for an anonymous graph.
+   * @param writer The writer to write the DOT text to.
+   */
+  private void writeDot(
+      LayoutGraph graph, LayoutOptions options, LayoutStrategy strategy, String name, Writer writer)
+      throws IOException {
+    double[] graphSize = options.getGraphSize();
+    double[] nodeSize = options.getNodeSize();
+    writer.write(name == null ? "strict digraph {\n" : "strict digraph " + quote(name) + " {\n");
+    writer.write("    graph [dpi=" + options.getDpi());
+    if (options.getFlatten().equals("true")) {
+      writer.write(", rank=\"same\"");
+    }
+    if (strategy.isCompress()) {
+      writer.write(", ratio=\"compress\"");
+    }
+    writer.write(", size=\"" + graphSize[0] + "," + graphSize[1] + "\"");
+    if (strategy.getRanksep() > 0) {
+      writer.write(", ranksep=" + strategy.getRanksep());
+    }
+    if (strategy.getSplines() != null) {
+      writer.write(", splines=\"" + strategy.getSplines() + "\"");
+    }
+    writer.write("]\n");
+    writer.write(
+        "    node [fixedsize=\"true\", shape=\"polygon\",  width="
+            + nodeSize[0]
+            + ", height="
+            + nodeSize[1]
+            + "]\n");
+    writer.write("    edge [label=\"HostedOn\", style=\"solid\"]\n");
+    for (String node : graph.getNodes()) {
+      writer.write("    " + quote(node) + "\n");
+    }
+    for (Map.Entry<String, List<String>> entry : graph.getHostedOn().entrySet()) {
+      String source = entry.getKey();
+      List<String> targets = entry.getValue();
+      if (targets.size() > 1) {
+        writer.write("    " + quote(source) + " -> { ");
+        for (String target : targets) {
+          writer.write(quote(target) + " ");
         }
+        writer.write("} [weight=2]\n");
+      } else {
+        writer.write("    " + quote(source) + " -> " + quote(targets.get(0)) + "\n");
       }
-      writer.write("  relationship_templates: \n");
-      for (Relation relation : relations) {
-        writer.write("    " + relation.getName() + ":\n");
-        writer.write("      type: tosca.relationships." + relation.getType().getName() + "\n");
+    }
+    writer.write("    subgraph {\n");
+    writer.write("        edge [label=\"ConnectsTo\", style=\"dashed\"]\n");
+    if (options.getFlatten().equals("partial")) {
+      writer.write("        { rank=\"same\" ");
+      for (String node : graph.getRankSame()) {
+        writer.write(quote(node) + " ");
+      }
+      writer.write("}\n");
+    }
+    for (Map.Entry<String, List<String>> entry : graph.getConnectsTo().entrySet()) {
+      String source = entry.getKey();
+      List<String> targets = entry.getValue();
+      if (targets.size() > 1) {
+        writer.write("        " + quote(source) + " -> { ");
+        for (String target : targets) {
+          writer.write(quote(target) + " ");
+        }
+        writer.write("} [weight=2]\n");
+      } else {
+        writer.write("        " + quote(source) + " -> " + quote(targets.get(0)) + "\n");
       }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
+    writer.write("    }\n}\n");
   }
 
   /*
-   * Clears the variables used to generate the layout.
+   * Quotes a node name as DOT identifier, backslashes and quotes in the name are escaped, so that
+   * a trailing backslash cannot escape the closing quote.
+   * @param name The name of the node.
+   * @return The quoted name.
    */
-  private void clearVariables() {
-    components.clear();
-    componentTypes.clear();
-    relations.clear();
-    layout.clear();
+  private String quote(String name) {
+    return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
   }
 
   /*
-   * Converts inches to pixels.
-   * @param inches the inches
-   * @return the pixels
+   * Calls the GraphVIZ tool to generate the layout of the components and relations in the TADM.
+   * The DOT text is streamed to the stdin of a supervised dot process and the plain output is
+   * parsed as it arrives. Graphs of concurrent tasks may be laid out by the same dot process.
+   * @param graph The layout graph to generate the layout for.
+   * @param options The layout options of the task.
+   * @param strategy The layout strategy selected for the graph.
+   * @param deadline The value of System.nanoTime() at which the layout must be finished.
+   * @param metrics The metrics of the task, the usage of the dot process is added to them.
+   * @return The coordinates of the nodes and edge routes in inches.
+   * @throws LayoutTimeoutException if dot did not finish before the deadline.
    */
-  private int convertInchesToPixels(double inches) {
-    return (int) Math.round(inches * dpi);
+  private PlainLayout callGraphVIZ(
+      LayoutGraph graph,
+      LayoutOptions options,
+      LayoutStrategy strategy,
+      long deadline,
+      TaskMetrics metrics) {
+    return graphvizBatcher.layout(
+        (writer, name) -> writeDot(graph, options, strategy, name, writer), deadline, metrics);
   }
 
   /*
-   * Converts pixels to inches.
-   * @param pixels the pixels
-   * @return the inches
+   * Converts the coordinates computed by a layout engine into the pixel coordinates of the layout.
+   * The y-axis is flipped, as the engines place the origin in the lower left corner.
+   * @param output A map of the component names and their coordinates in inches.
+   * @param edges The points of the edge routes in inches, grouped by source and target.
+   * @param options The layout options of the task.
+   * @param strategy The strategy the layout was computed with.
+   * @return The pixel coordinates of the components and edge routes.
    */
-  private double convertPixelsToInches(double pixels) {
-    return (double) Math.round((pixels / dpi) * 100) / 100;
+  Layout applyLayout(
+      Map<String, double[]> output,
+      Map<String, Map<String, double[]>> edges,
+      LayoutOptions options,
+      LayoutStrategy strategy) {
+    Map<String, int[]> positions = new HashMap<>();
+    double maxY = 0;
+    for (double[] coords : output.values()) {
+      maxY = Math.max(coords[1], maxY);
+    }
+
+    for (Map.Entry<String, double[]> entry : output.entrySet()) {
+      String node = entry.getKey();
+      double[] coords = entry.getValue();
+      int x = options.convertInchesToPixels(coords[0]);
+      int y = options.convertInchesToPixels(Math.abs(coords[1] - maxY)) + 100;
+      positions.put(node, new int[] {x, y});
+    }
+
+    Map<String, Map<String, int[]>> routes = new HashMap<>();
+    for (Map.Entry<String, Map<String, double[]>> source : edges.entrySet()) {
+      Map<String, int[]> targets = new HashMap<>();
+      for (Map.Entry<String, double[]> target : source.getValue().entrySet()) {
+        double[] points = target.getValue();
+        int[] route = new int[points.length];
+        for (int i = 0; i + 1 < points.length; i += 2) {
+          route[i] = options.convertInchesToPixels(points[i]);
+          route[i + 1] = options.convertInchesToPixels(Math.abs(points[i + 1] - maxY)) + 100;
+        }
+        targets.put(target.getKey(), route);
+      }
+      routes.put(source.getKey(), targets);
+    }
+    return new Layout(positions, routes, strategy);
   }
 
   /*
-   * Check if the given string is numeric.
-   * @param str the string
-   * @return true if the string is numeric, false otherwise
+   * Creates the node types for the component types in the TADM. The node types are rendered in
+   * parallel. If several component types have the same name, the last one is used.
+   * @param componentTypes The component types in the TADM.
+   * @param id The ID of the transformation process.
+   * @return The contents of the node types by their path in the repository.
    */
-  public boolean isNumeric(String str) {
-    try {
-      Double.parseDouble(str);
-      return true;
-    } catch (NullPointerException | NumberFormatException e) {
-      return false;
+  Map<String, byte[]> createNodeTypes(List<ComponentType> componentTypes, UUID id) {
+    Map<String, ComponentType> componentTypesByName = new LinkedHashMap<>();
+    for (ComponentType componentType : componentTypes) {
+      componentTypesByName.put(componentType.getName(), componentType);
     }
+    List<byte[]> contents =
+        componentTypesByName.values().parallelStream()
+            .map(
+                componentType -> {
+                  ByteArrayOutputStream content = new ByteArrayOutputStream();
+                  try (Writer writer =
+                      new BufferedWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8))) {
+                    toscaWriter.writeNodeType(writer, componentType, id);
+                  } catch (IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                  return content.toByteArray();
+                })
+            .collect(Collectors.toList());
+
+    Map<String, byte[]> nodeTypes = new LinkedHashMap<>();
+    Iterator<byte[]> content = contents.iterator();
+    for (String name : componentTypesByName.keySet()) {
+      nodeTypes.put(
+          "nodetypes/" + id + ".ust.tad.nodetypes/" + name + "/NodeType.tosca", content.next());
+    }
+    return nodeTypes;
   }
 
-  private static class Node {
-    String name;
-    String type;
-    int x;
-    int y;
-    String displayName;
-    List<Property> properties;
-    List<Requirement> requirements;
-  }
-
-  private static class Requirement {
-    String type;
-    String node;
-    String relationship;
-    String capability;
+  /*
+   * Creates the service template for the components and relations in the TADM.
+   * @param components The components in the TADM.
+   * @param relationIndex The index of the relations in the TADM.
+   * @param layout The pixel coordinates of the components and edge routes.
+   * @param optionsFingerprint The fingerprint of the layout options the layout was computed with.
+   * @param id The ID of the transformation process.
+   * @return The content of the service template.
+   */
+  byte[] createServiceTemplate(
+      List<Component> components,
+      RelationIndex relationIndex,
+      Layout layout,
+      String optionsFingerprint,
+      UUID id) {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (Writer writer =
+        new BufferedWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8))) {
+      toscaWriter.writeServiceTemplate(
+          writer, components, relationIndex, layout, optionsFingerprint, id);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return content.toByteArray();
   }
 }
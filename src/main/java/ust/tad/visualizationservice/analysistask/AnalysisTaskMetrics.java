@@ -0,0 +1,207 @@
+package ust.tad.visualizationservice.analysistask;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import ust.tad.visualizationservice.metrics.PipelineMetrics.Stage;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
+
+/**
+ * The timing breakdown and resource usage of a task, sent with its response. The durations are in
+ * milliseconds, values that were not measured are omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisTaskMetrics {
+
+  private double wallTimeMs;
+
+  private Map<String, Double> stageTimesMs = new LinkedHashMap<>();
+
+  private Integer components;
+
+  private Integer relations;
+
+  private int dotProcesses;
+
+  private Double dotCpuTimeMs;
+
+  private Long dotPeakRssBytes;
+
+  private boolean cacheHit;
+
+  private boolean incremental;
+
+  public AnalysisTaskMetrics() {}
+
+  /**
+   * Creates the metrics of a response from the metrics collected for a task.
+   *
+   * @param metrics The metrics of the task.
+   * @return The metrics of the response.
+   */
+  public static AnalysisTaskMetrics fromTaskMetrics(TaskMetrics metrics) {
+    AnalysisTaskMetrics analysisTaskMetrics = new AnalysisTaskMetrics();
+    analysisTaskMetrics.setWallTimeMs(toMillis(metrics.getWallNanos()));
+    for (Map.Entry<Stage, Long> stage : metrics.getStageNanos().entrySet()) {
+      analysisTaskMetrics
+          .getStageTimesMs()
+          .put(stage.getKey().toString(), toMillis(stage.getValue()));
+    }
+    if (metrics.getComponents() >= 0) {
+      analysisTaskMetrics.setComponents(metrics.getComponents());
+      analysisTaskMetrics.setRelations(metrics.getRelations());
+    }
+    analysisTaskMetrics.setDotProcesses(metrics.getDotProcesses());
+    if (metrics.getDotCpuNanos() >= 0) {
+      analysisTaskMetrics.setDotCpuTimeMs(toMillis(metrics.getDotCpuNanos()));
+    }
+    if (metrics.getDotPeakRssBytes() >= 0) {
+      analysisTaskMetrics.setDotPeakRssBytes(metrics.getDotPeakRssBytes());
+    }
+    analysisTaskMetrics.setCacheHit(metrics.isCacheHit());
+    analysisTaskMetrics.setIncremental(metrics.isIncremental());
+    return analysisTaskMetrics;
+  }
+
+  private static double toMillis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+
+  public double getWallTimeMs() {
+    return this.wallTimeMs;
+  }
+
+  public void setWallTimeMs(double wallTimeMs) {
+    this.wallTimeMs = wallTimeMs;
+  }
+
+  public Map<String, Double> getStageTimesMs() {
+    return this.stageTimesMs;
+  }
+
+  public void setStageTimesMs(Map<String, Double> stageTimesMs) {
+    this.stageTimesMs = stageTimesMs;
+  }
+
+  public Integer getComponents() {
+    return this.components;
+  }
+
+  public void setComponents(Integer components) {
+    this.components = components;
+  }
+
+  public Integer getRelations() {
+    return this.relations;
+  }
+
+  public void setRelations(Integer relations) {
+    this.relations = relations;
+  }
+
+  public int getDotProcesses() {
+    return this.dotProcesses;
+  }
+
+  public void setDotProcesses(int dotProcesses) {
+    this.dotProcesses = dotProcesses;
+  }
+
+  public Double getDotCpuTimeMs() {
+    return this.dotCpuTimeMs;
+  }
+
+  public void setDotCpuTimeMs(Double dotCpuTimeMs) {
+    this.dotCpuTimeMs = dotCpuTimeMs;
+  }
+
+  public Long getDotPeakRssBytes() {
+    return this.dotPeakRssBytes;
+  }
+
+  public void setDotPeakRssBytes(Long dotPeakRssBytes) {
+    this.dotPeakRssBytes = dotPeakRssBytes;
+  }
+
+  public boolean isCacheHit() {
+    return this.cacheHit;
+  }
+
+  public void setCacheHit(boolean cacheHit) {
+    this.cacheHit = cacheHit;
+  }
+
+  public boolean isIncremental() {
+    return this.incremental;
+  }
+
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof AnalysisTaskMetrics)) {
+      return false;
+    }
+    AnalysisTaskMetrics analysisTaskMetrics = (AnalysisTaskMetrics) o;
+    return wallTimeMs == analysisTaskMetrics.wallTimeMs
+        && Objects.equals(stageTimesMs, analysisTaskMetrics.stageTimesMs)
+        && Objects.equals(components, analysisTaskMetrics.components)
+        && Objects.equals(relations, analysisTaskMetrics.relations)
+        && dotProcesses == analysisTaskMetrics.dotProcesses
+        && Objects.equals(dotCpuTimeMs, analysisTaskMetrics.dotCpuTimeMs)
+        && Objects.equals(dotPeakRssBytes, analysisTaskMetrics.dotPeakRssBytes)
+        && cacheHit == analysisTaskMetrics.cacheHit
+        && incremental == analysisTaskMetrics.incremental;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        wallTimeMs,
+        stageTimesMs,
+        components,
+        relations,
+        dotProcesses,
+        dotCpuTimeMs,
+        dotPeakRssBytes,
+        cacheHit,
+        incremental);
+  }
+
+  @Override
+  public String toString() {
+    return "{"
+        + " wallTimeMs='"
+        + getWallTimeMs()
+        + "'"
+        + ", stageTimesMs='"
+        + getStageTimesMs()
+        + "'"
+        + ", components='"
+        + getComponents()
+        + "'"
+        + ", relations='"
+        + getRelations()
+        + "'"
+        + ", dotProcesses='"
+        + getDotProcesses()
+        + "'"
+        + ", dotCpuTimeMs='"
+        + getDotCpuTimeMs()
+        + "'"
+        + ", dotPeakRssBytes='"
+        + getDotPeakRssBytes()
+        + "'"
+        + ", cacheHit='"
+        + isCacheHit()
+        + "'"
+        + ", incremental='"
+        + isIncremental()
+        + "'"
+        + "}";
+  }
+}
@@ -1,5 +1,6 @@
 package ust.tad.visualizationservice.analysistask;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -11,6 +12,12 @@ public class AnalysisTaskResponse {
 
   private String errorMessage;
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String layoutStrategy;
+
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private AnalysisTaskMetrics metrics;
+
   public AnalysisTaskResponse() {}
 
   /**
@@ -54,6 +61,22 @@ public class AnalysisTaskResponse {
     this.errorMessage = errorMessage;
   }
 
+  public String getLayoutStrategy() {
+    return this.layoutStrategy;
+  }
+
+  public void setLayoutStrategy(String layoutStrategy) {
+    this.layoutStrategy = layoutStrategy;
+  }
+
+  public AnalysisTaskMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  public void setMetrics(AnalysisTaskMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   public AnalysisTaskResponse taskId(UUID taskId) {
     setTaskId(taskId);
     return this;
@@ -69,6 +92,16 @@ public class AnalysisTaskResponse {
     return this;
   }
 
+  public AnalysisTaskResponse layoutStrategy(String layoutStrategy) {
+    setLayoutStrategy(layoutStrategy);
+    return this;
+  }
+
+  public AnalysisTaskResponse metrics(AnalysisTaskMetrics metrics) {
+    setMetrics(metrics);
+    return this;
+  }
+
   /**
    * Compares this object to another object.
    *
@@ -84,7 +117,9 @@ public class AnalysisTaskResponse {
     AnalysisTaskResponse analysisTaskResponse = (AnalysisTaskResponse) o;
     return Objects.equals(taskId, analysisTaskResponse.taskId)
         && success == analysisTaskResponse.success
-        && Objects.equals(errorMessage, analysisTaskResponse.errorMessage);
+        && Objects.equals(errorMessage, analysisTaskResponse.errorMessage)
+        && Objects.equals(layoutStrategy, analysisTaskResponse.layoutStrategy)
+        && Objects.equals(metrics, analysisTaskResponse.metrics);
   }
 
   /**
@@ -94,7 +129,7 @@ public class AnalysisTaskResponse {
    */
   @Override
   public int hashCode() {
-    return Objects.hash(taskId, success, errorMessage);
+    return Objects.hash(taskId, success, errorMessage, layoutStrategy, metrics);
   }
 
   /**
@@ -114,6 +149,12 @@ public class AnalysisTaskResponse {
         + ", errorMessage='"
         + getErrorMessage()
         + "'"
+        + ", layoutStrategy='"
+        + getLayoutStrategy()
+        + "'"
+        + ", metrics='"
+        + getMetrics()
+        + "'"
         + "}";
   }
 }
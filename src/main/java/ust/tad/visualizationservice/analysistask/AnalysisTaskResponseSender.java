@@ -32,13 +32,27 @@ public class AnalysisTaskResponseSender {
    * Sends a success response to the response exchange.
    *
    * @param taskId The ID of the task.
+   * @param layoutStrategy The strategy the layout of the task was computed with.
    */
-  public void sendSuccessResponse(UUID taskId) {
+  public void sendSuccessResponse(UUID taskId, String layoutStrategy) {
+    sendSuccessResponse(taskId, layoutStrategy, null);
+  }
+
+  /**
+   * Sends a success response with the metrics of the task to the response exchange.
+   *
+   * @param taskId The ID of the task.
+   * @param layoutStrategy The strategy the layout of the task was computed with.
+   * @param metrics The timing breakdown and resource usage of the task, or null.
+   */
+  public void sendSuccessResponse(UUID taskId, String layoutStrategy, AnalysisTaskMetrics metrics) {
     LOG.info("Transformation completed successfully, sending success response");
     ObjectMapper objectMapper = new ObjectMapper();
     AnalysisTaskResponse analysisTaskResponse = new AnalysisTaskResponse();
     analysisTaskResponse.setTaskId(taskId);
     analysisTaskResponse.setSuccess(true);
+    analysisTaskResponse.setLayoutStrategy(layoutStrategy);
+    analysisTaskResponse.setMetrics(metrics);
 
     Message message;
     // Convert the AnalysisTaskResponse object to a JSON string and send it as a message
@@ -63,6 +77,18 @@ public class AnalysisTaskResponseSender {
    * @param errorMessage The error message.
    */
   public void sendFailureResponse(UUID taskId, String errorMessage) {
+    sendFailureResponse(taskId, errorMessage, null);
+  }
+
+  /**
+   * Sends a failure response with the metrics of the task up to the failure to the response
+   * exchange. If the task ID is not null, it is also included in the response.
+   *
+   * @param taskId The ID of the task.
+   * @param errorMessage The error message.
+   * @param metrics The timing breakdown and resource usage of the task, or null.
+   */
+  public void sendFailureResponse(UUID taskId, String errorMessage, AnalysisTaskMetrics metrics) {
     LOG.info("Sending failure response: " + errorMessage);
     ObjectMapper objectMapper = new ObjectMapper();
     AnalysisTaskResponse analysisTaskResponse = new AnalysisTaskResponse();
@@ -71,6 +97,7 @@ public class AnalysisTaskResponseSender {
     }
     analysisTaskResponse.setSuccess(false);
     analysisTaskResponse.setErrorMessage(errorMessage);
+    analysisTaskResponse.setMetrics(metrics);
 
     Message message;
     // Convert the AnalysisTaskResponse object to a JSON string and send it as a message
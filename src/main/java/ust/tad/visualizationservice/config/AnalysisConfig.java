@@ -0,0 +1,45 @@
+package ust.tad.visualizationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AnalysisConfig {
+
+  @Value("${analysis.locations.parallelism}")
+  private int parallelism;
+
+  @Value("${graphviz.max-processes}")
+  private int maxProcesses;
+
+  /**
+   * Bounded executor fetching and parsing the locations of the analysis tasks. It is shared by all
+   * tasks, so the number of concurrent downloads does not grow with the number of consumers.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor locationTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(parallelism);
+    executor.setMaxPoolSize(parallelism);
+    executor.setThreadNamePrefix("analysis-location-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+
+  /**
+   * Bounded executor laying out the connected components of the graphs of the analysis tasks. The
+   * layout of a component mostly waits for a dot process, so the pool has as many threads as dot
+   * processes may run, and it is separate from the common pool used by the artifact sinks.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor layoutPartTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(maxProcesses);
+    executor.setMaxPoolSize(maxProcesses);
+    executor.setThreadNamePrefix("layout-part-");
+    executor.setDaemon(true);
+    return executor;
+  }
+}
@@ -0,0 +1,43 @@
+package ust.tad.visualizationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class GraphvizConfig {
+
+  @Value("${graphviz.max-processes}")
+  private int maxProcesses;
+
+  /**
+   * Executor writing the stdin and draining the stderr of the running dot processes, two threads
+   * per process. The number of processes is bounded by the GraphvizRunner, so the pool never has to
+   * queue.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor graphvizStreamTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(2 * maxProcesses);
+    executor.setMaxPoolSize(2 * maxProcesses);
+    executor.setThreadNamePrefix("graphviz-stream-");
+    executor.setDaemon(true);
+    return executor;
+  }
+
+  /**
+   * Scheduler sampling the CPU time and memory usage of the running dot processes and killing them
+   * at their deadline. The tasks of a finished process are cancelled and removed from the queue.
+   */
+  @Bean
+  public ThreadPoolTaskScheduler graphvizSampleTaskScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setPoolSize(1);
+    scheduler.setRemoveOnCancelPolicy(true);
+    scheduler.setThreadNamePrefix("graphviz-sample-");
+    scheduler.setDaemon(true);
+    return scheduler;
+  }
+}
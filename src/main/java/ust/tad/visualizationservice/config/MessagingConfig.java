@@ -5,14 +5,19 @@ import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class MessagingConfig {
 
   @Autowired private ConnectionFactory connectionFactory;
 
+  @Value("${messaging.analysistask.request.max-concurrent-consumers}")
+  private int maxConcurrentConsumers;
+
   /** Used to add AMQP entities at runtime. */
   @Bean
   public RabbitAdmin rabbitAdmin() {
@@ -24,4 +29,20 @@ public class MessagingConfig {
   public MessageConverter jsonMessageConverter() {
     return new Jackson2JsonMessageConverter();
   }
+
+  /**
+   * Bounded executor running the consumers of the request queue listener. It keeps one thread per
+   * consumer and has headroom for a restarted consumer, whose thread is started before the thread
+   * of the failed consumer has ended.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor requestQueueTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(maxConcurrentConsumers);
+    executor.setMaxPoolSize(maxConcurrentConsumers * 2);
+    executor.setQueueCapacity(0);
+    executor.setThreadNamePrefix("analysis-task-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
 }
@@ -0,0 +1,34 @@
+package ust.tad.visualizationservice.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RepositoryConfig {
+
+  @Value("${repository.write-queue.threads}")
+  private int threads;
+
+  @Value("${repository.write-queue.capacity}")
+  private int capacity;
+
+  /**
+   * Executor writing the artifacts of the tasks to the artifact sink, so that a consumer can start
+   * the layout of the next task while the artifacts of the previous one are written. The queue is
+   * bounded, if it is full the consumer writes the artifacts itself.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor artifactWriteTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(capacity);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("artifact-write-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+}
@@ -0,0 +1,201 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combines the layouts of the connected components of a graph. Each component is laid out on its
+ * own, then the bounding boxes of the components are packed into rows, the highest components
+ * first. The rows have the target width, unless wider rows fit the packed layout better into the
+ * target width and height.
+ */
+public final class ComponentPacker {
+
+  /** The space between the bounding boxes of two components in inches. */
+  private static final double COMPONENT_SEPARATION = 0.5;
+
+  /** The factor by which the width of the rows grows between two packing attempts. */
+  private static final double ROW_WIDTH_GROWTH = 1.25;
+
+  private ComponentPacker() {}
+
+  /**
+   * Distributes the components into at most the given number of groups of similar size, so that the
+   * components can be laid out with a bounded number of layout engine invocations.
+   *
+   * @param components The node names of each component.
+   * @param maxGroups The maximum number of groups.
+   * @return The node names of each group.
+   */
+  public static List<List<String>> group(List<List<String>> components, int maxGroups) {
+    int groupCount = Math.max(1, Math.min(maxGroups, components.size()));
+    List<List<String>> groups = new ArrayList<>();
+    for (int i = 0; i < groupCount; i++) {
+      groups.add(new ArrayList<>());
+    }
+    List<List<String>> bySize = new ArrayList<>(components);
+    bySize.sort(Comparator.comparingInt((List<String> component) -> component.size()).reversed());
+    for (List<String> component : bySize) {
+      List<String> smallest = groups.get(0);
+      for (List<String> group : groups) {
+        if (group.size() < smallest.size()) {
+          smallest = group;
+        }
+      }
+      smallest.addAll(component);
+    }
+    return groups;
+  }
+
+  /**
+   * Packs the separately laid out components into the given width and height. The components are
+   * placed in rows of the given width, if they then exceed the height, the rows are widened as long
+   * as the packed layout has to be scaled down less to fit into the width and height. The
+   * coordinates are in inches with the origin in the lower left corner.
+   *
+   * @param components The node names of each component.
+   * @param layout The layout of all components, each one in its own coordinate system.
+   * @param nodeSize The width and height of a node.
+   * @param graphSize The target width and height of the packed layout.
+   * @return The packed layout.
+   */
+  public static PlainLayout pack(
+      List<List<String>> components, PlainLayout layout, double[] nodeSize, double[] graphSize) {
+    int count = components.size();
+    double[][] boxes = new double[count][];
+    Map<String, Integer> componentOf = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      double[] box = {
+        Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY,
+        Double.NEGATIVE_INFINITY
+      };
+      for (String node : components.get(i)) {
+        componentOf.put(node, i);
+        double[] center = layout.getNodes().get(node);
+        if (center != null) {
+          include(box, center[0] - nodeSize[0] / 2, center[1] - nodeSize[1] / 2);
+          include(box, center[0] + nodeSize[0] / 2, center[1] + nodeSize[1] / 2);
+        }
+        Map<String, double[]> edges = layout.getEdges().get(node);
+        if (edges != null) {
+          for (double[] points : edges.values()) {
+            for (int j = 0; j + 1 < points.length; j += 2) {
+              include(box, points[j], points[j + 1]);
+            }
+          }
+        }
+      }
+      if (box[0] > box[2]) {
+        box = new double[] {0, 0, 0, 0};
+      }
+      boxes[i] = box;
+    }
+
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      order.add(i);
+    }
+    order.sort(
+        Comparator.comparingDouble((Integer i) -> boxes[i][3] - boxes[i][1])
+            .reversed()
+            .thenComparing(
+                Comparator.comparingDouble((Integer i) -> boxes[i][2] - boxes[i][0]).reversed())
+            .thenComparingInt(i -> i));
+
+    double totalWidth = 0;
+    for (double[] box : boxes) {
+      totalWidth += box[2] - box[0] + COMPONENT_SEPARATION;
+    }
+    double[][] offsets = new double[count][];
+    double[] size = placeRows(order, boxes, graphSize[0], offsets);
+    double scale = Math.max(size[0] / graphSize[0], size[1] / graphSize[1]);
+    for (double rowWidth = graphSize[0] * ROW_WIDTH_GROWTH;
+        size[1] > graphSize[1] && rowWidth < totalWidth * ROW_WIDTH_GROWTH;
+        rowWidth *= ROW_WIDTH_GROWTH) {
+      double[][] wider = new double[count][];
+      double[] widerSize = placeRows(order, boxes, rowWidth, wider);
+      double widerScale = Math.max(widerSize[0] / graphSize[0], widerSize[1] / graphSize[1]);
+      if (widerScale >= scale) {
+        break;
+      }
+      offsets = wider;
+      size = widerSize;
+      scale = widerScale;
+    }
+    double width = Math.max(graphSize[0], size[0]);
+    double height = size[1];
+
+    PlainLayout packed = new PlainLayout();
+    packed.setWidth(width);
+    packed.setHeight(height);
+    for (Map.Entry<String, double[]> entry : layout.getNodes().entrySet()) {
+      Integer i = componentOf.get(entry.getKey());
+      if (i != null) {
+        double[] center = entry.getValue();
+        packed.getNodes().put(entry.getKey(), translate(center, boxes[i], offsets[i], height));
+      }
+    }
+    for (Map.Entry<String, Map<String, double[]>> entry : layout.getEdges().entrySet()) {
+      Integer i = componentOf.get(entry.getKey());
+      if (i != null) {
+        Map<String, double[]> targets = new HashMap<>();
+        for (Map.Entry<String, double[]> edge : entry.getValue().entrySet()) {
+          targets.put(edge.getKey(), translate(edge.getValue(), boxes[i], offsets[i], height));
+        }
+        packed.getEdges().put(entry.getKey(), targets);
+      }
+    }
+    return packed;
+  }
+
+  /*
+   * Places the bounding boxes in the given order into rows of the given width.
+   * @return The width and height of the placed rows.
+   */
+  private static double[] placeRows(
+      List<Integer> order, double[][] boxes, double rowWidth, double[][] offsets) {
+    double x = 0;
+    double width = 0;
+    double rowTop = 0;
+    double rowHeight = 0;
+    for (int i : order) {
+      double boxWidth = boxes[i][2] - boxes[i][0];
+      double boxHeight = boxes[i][3] - boxes[i][1];
+      if (x > 0 && x + boxWidth > rowWidth) {
+        rowTop += rowHeight + COMPONENT_SEPARATION;
+        x = 0;
+        rowHeight = 0;
+      }
+      offsets[i] = new double[] {x, rowTop};
+      x += boxWidth + COMPONENT_SEPARATION;
+      width = Math.max(width, x - COMPONENT_SEPARATION);
+      rowHeight = Math.max(rowHeight, boxHeight);
+    }
+    return new double[] {width, rowTop + rowHeight};
+  }
+
+  private static void include(double[] box, double x, double y) {
+    box[0] = Math.min(box[0], x);
+    box[1] = Math.min(box[1], y);
+    box[2] = Math.max(box[2], x);
+    box[3] = Math.max(box[3], y);
+  }
+
+  /*
+   * Moves the points of a component to its place in the packed layout. The rows are placed from
+   * the top, so the offset of a component is measured from the top of the packed layout.
+   */
+  private static double[] translate(double[] points, double[] box, double[] offset, double height) {
+    double[] translated = new double[points.length];
+    for (int j = 0; j + 1 < points.length; j += 2) {
+      translated[j] = points[j] - box[0] + offset[0];
+      translated[j + 1] = height - offset[1] - (box[3] - points[j + 1]);
+    }
+    return translated;
+  }
+}
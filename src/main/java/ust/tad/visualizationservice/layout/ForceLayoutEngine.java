@@ -0,0 +1,444 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process force-directed layout engine for very large models, following Fruchterman and
+ * Reingold. All nodes repel each other and the nodes of a relation attract each other; the
+ * repulsion is approximated with a Barnes-Hut quadtree, so that an iteration takes O(n log n)
+ * instead of O(n²) time. The forces of the nodes are computed in parallel on primitive arrays.
+ * HostedOn relations additionally pull the host above the hosted node, so the stacks keep their
+ * top-down direction. The layout is deterministic: the nodes start on a spiral in the order of the
+ * graph. The coordinates are the centers of the nodes in inches with the origin in the lower left
+ * corner, like the output of "dot -Tplain".
+ */
+@Component
+public class ForceLayoutEngine {
+
+  private static final double NODE_SEPARATION = 0.25;
+  private static final double RANK_SEPARATION = 0.5;
+  private static final int ITERATIONS = 300;
+  private static final int MIN_ITERATIONS = 50;
+  private static final int ITERATIONS_LARGE_GRAPHS = 150;
+  private static final int LARGE_GRAPH_SIZE = 5000;
+
+  /** The forces of smaller graphs are computed on the calling thread. */
+  private static final int PARALLEL_GRAPH_SIZE = 512;
+
+  /** The accuracy of the approximation, a cell is approximated if its size / distance < THETA. */
+  private static final double THETA = 1.0;
+
+  /** The strength of the force pulling a host above the nodes hosted on it. */
+  private static final double HOSTING_STRENGTH = 10;
+
+  /** The strength of the force pulling all nodes to the center, keeping the layout compact. */
+  private static final double GRAVITY = 3.0;
+
+  private static final double MIN_DISTANCE = 1e-3;
+
+  /**
+   * Computes the layout of the given graph. The ideal distance between two nodes is the size of a
+   * node plus its separation, so the layout is computed in units of that distance and scaled
+   * horizontally and vertically at the end.
+   *
+   * @param graph The graph to lay out.
+   * @param nodeSize The width and height of a node in inches.
+   * @param deadline The value of System.nanoTime() at which the layout must be finished.
+   * @return A map of the node names and the coordinates of their centers in inches.
+   * @throws LayoutTimeoutException if the layout did not finish before the deadline.
+   */
+  public Map<String, double[]> layout(LayoutGraph graph, double[] nodeSize, long deadline) {
+    Map<String, Integer> index = new LinkedHashMap<>();
+    for (String node : graph.getNodes()) {
+      index.putIfAbsent(node, index.size());
+    }
+    int n = index.size();
+    Map<String, double[]> positions = new LinkedHashMap<>();
+    if (n == 0) {
+      return positions;
+    }
+
+    int[][] adjacency =
+        adjacency(n, index, List.of(graph.getHostedOn(), graph.getConnectsTo()), false);
+    int[][] hosts = adjacency(n, index, List.of(graph.getHostedOn()), true);
+
+    double[] x = new double[n];
+    double[] y = new double[n];
+    double goldenAngle = Math.PI * (3 - Math.sqrt(5));
+    for (int i = 0; i < n; i++) {
+      double radius = Math.sqrt(i + 0.5);
+      x[i] = radius * Math.cos(i * goldenAngle);
+      y[i] = radius * Math.sin(i * goldenAngle);
+    }
+
+    double[] dx = new double[n];
+    double[] dy = new double[n];
+    // Small graphs converge in fewer iterations, the iterations of large graphs are more expensive
+    int iterations =
+        n > LARGE_GRAPH_SIZE ? ITERATIONS_LARGE_GRAPHS : Math.min(ITERATIONS, MIN_ITERATIONS + n);
+    double initialTemperature = Math.sqrt(n);
+    QuadTree tree = new QuadTree(n);
+    for (int iteration = 0; iteration < iterations; iteration++) {
+      if (System.nanoTime() - deadline > 0) {
+        throw new LayoutTimeoutException(
+            "The force-directed layout did not finish before the deadline");
+      }
+      tree.build(x, y, n);
+      double centerX = tree.mx[0];
+      double centerY = tree.my[0];
+      IntStream forces = IntStream.range(0, n);
+      if (n >= PARALLEL_GRAPH_SIZE) {
+        forces = forces.parallel();
+      }
+      forces.forEach(
+          i -> {
+            tree.repulsion(i, x[i], y[i], dx, dy);
+            double fx = dx[i] - GRAVITY * (x[i] - centerX);
+            double fy = dy[i] - GRAVITY * (y[i] - centerY);
+            for (int j : adjacency[i]) {
+              double ex = x[j] - x[i];
+              double ey = y[j] - y[i];
+              double distance = Math.sqrt(ex * ex + ey * ey);
+              fx += ex * distance;
+              fy += ey * distance;
+            }
+            fy += hostingForce(i, hosts, y);
+            dx[i] = fx;
+            dy[i] = fy;
+          });
+
+      double temperature =
+          Math.max(0.01, initialTemperature * (1 - (double) iteration / iterations));
+      for (int i = 0; i < n; i++) {
+        double length = Math.sqrt(dx[i] * dx[i] + dy[i] * dy[i]);
+        if (length > temperature) {
+          x[i] += dx[i] / length * temperature;
+          y[i] += dy[i] / length * temperature;
+        } else {
+          x[i] += dx[i];
+          y[i] += dy[i];
+        }
+      }
+    }
+
+    snapToGrid(x, y, n);
+
+    double stepX = nodeSize[0] + NODE_SEPARATION;
+    double stepY = nodeSize[1] + RANK_SEPARATION;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+    }
+    for (Map.Entry<String, Integer> entry : index.entrySet()) {
+      int i = entry.getValue();
+      positions.put(
+          entry.getKey(),
+          new double[] {
+            (x[i] - minX) * stepX + nodeSize[0] / 2, (y[i] - minY) * stepY + nodeSize[1] / 2
+          });
+    }
+    return positions;
+  }
+
+  /*
+   * Moves each node to the nearest free cell of a grid with the ideal distance as cell size, so
+   * that no two nodes overlap after scaling. The nodes closest to the center are placed first.
+   */
+  private static void snapToGrid(double[] x, double[] y, int n) {
+    double centerX = 0;
+    double centerY = 0;
+    for (int i = 0; i < n; i++) {
+      centerX += x[i] / n;
+      centerY += y[i] / n;
+    }
+    double[] distance = new double[n];
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      distance[i] = Math.hypot(x[i] - centerX, y[i] - centerY);
+      order[i] = i;
+    }
+    Arrays.sort(
+        order, Comparator.comparingDouble((Integer i) -> distance[i]).thenComparingInt(i -> i));
+
+    Set<Long> occupied = new HashSet<>();
+    for (int i : order) {
+      long column = Math.round(x[i]);
+      long row = Math.round(y[i]);
+      long bestColumn = column;
+      long bestRow = row;
+      for (int ring = 0; ; ring++) {
+        double best = Double.POSITIVE_INFINITY;
+        for (long c = column - ring; c <= column + ring; c++) {
+          for (long r = row - ring; r <= row + ring; r++) {
+            if (Math.max(Math.abs(c - column), Math.abs(r - row)) != ring
+                || occupied.contains(cell(c, r))) {
+              continue;
+            }
+            double d = (c - x[i]) * (c - x[i]) + (r - y[i]) * (r - y[i]);
+            if (d < best) {
+              best = d;
+              bestColumn = c;
+              bestRow = r;
+            }
+          }
+        }
+        if (best < Double.POSITIVE_INFINITY) {
+          break;
+        }
+      }
+      occupied.add(cell(bestColumn, bestRow));
+      x[i] = bestColumn;
+      y[i] = bestRow;
+    }
+  }
+
+  private static long cell(long column, long row) {
+    return (column << 32) ^ (row & 0xffffffffL);
+  }
+
+  /*
+   * The vertical force keeping a host at least one unit above the nodes hosted on it. It pushes a
+   * hosted node down and its host up, as y grows upwards.
+   */
+  private static double hostingForce(int i, int[][] hosts, double[] y) {
+    double force = 0;
+    for (int j : hosts[i]) {
+      boolean hosted = j >= 0;
+      int other = hosted ? j : ~j;
+      double gap = hosted ? y[other] - y[i] : y[i] - y[other];
+      if (gap < 1) {
+        force += (hosted ? -1 : 1) * (1 - gap) * HOSTING_STRENGTH;
+      }
+    }
+    return force;
+  }
+
+  /*
+   * Creates the adjacency lists of the nodes from the given edges. If directed, the source of an
+   * edge lists its target and the target lists the complement (~) of its source.
+   */
+  private static int[][] adjacency(
+      int n, Map<String, Integer> index, List<Map<String, List<String>>> edges, boolean directed) {
+    int[] degree = new int[n];
+    for (Map<String, List<String>> map : edges) {
+      for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+        Integer source = index.get(entry.getKey());
+        for (String targetName : entry.getValue()) {
+          Integer target = index.get(targetName);
+          if (source != null && target != null && !source.equals(target)) {
+            degree[source]++;
+            degree[target]++;
+          }
+        }
+      }
+    }
+    int[][] adjacency = new int[n][];
+    for (int i = 0; i < n; i++) {
+      adjacency[i] = new int[degree[i]];
+      degree[i] = 0;
+    }
+    for (Map<String, List<String>> map : edges) {
+      for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+        Integer source = index.get(entry.getKey());
+        for (String targetName : entry.getValue()) {
+          Integer target = index.get(targetName);
+          if (source != null && target != null && !source.equals(target)) {
+            adjacency[source][degree[source]++] = target;
+            adjacency[target][degree[target]++] = directed ? ~source : source;
+          }
+        }
+      }
+    }
+    return adjacency;
+  }
+
+  /*
+   * Barnes-Hut quadtree stored in primitive arrays. Each cell has a center, a half size, the number
+   * of nodes in it and their center of mass, and either four children or, as a leaf, one node.
+   * Nodes at the same position are merged into one leaf once the maximum depth is reached.
+   */
+  private static final class QuadTree {
+    private static final int MAX_DEPTH = 48;
+
+    private static final ThreadLocal<int[]> STACKS =
+        ThreadLocal.withInitial(() -> new int[3 * MAX_DEPTH + 4]);
+
+    private double[] cx;
+    private double[] cy;
+    private double[] half;
+    private double[] mass;
+    private double[] mx;
+    private double[] my;
+    private int[] children;
+    private int[] body;
+    private int cells;
+
+    private QuadTree(int n) {
+      allocate(Math.max(16, 2 * n));
+    }
+
+    private void allocate(int capacity) {
+      cx = new double[capacity];
+      cy = new double[capacity];
+      half = new double[capacity];
+      mass = new double[capacity];
+      mx = new double[capacity];
+      my = new double[capacity];
+      children = new int[4 * capacity];
+      body = new int[capacity];
+    }
+
+    private void build(double[] x, double[] y, int n) {
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < n; i++) {
+        minX = Math.min(minX, x[i]);
+        minY = Math.min(minY, y[i]);
+        maxX = Math.max(maxX, x[i]);
+        maxY = Math.max(maxY, y[i]);
+      }
+      cells = 0;
+      newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1);
+      for (int i = 0; i < n; i++) {
+        insert(i, x, y);
+      }
+    }
+
+    private int newCell(double centerX, double centerY, double halfSize) {
+      if (cells == body.length) {
+        grow();
+      }
+      int cell = cells++;
+      cx[cell] = centerX;
+      cy[cell] = centerY;
+      half[cell] = halfSize;
+      mass[cell] = 0;
+      mx[cell] = 0;
+      my[cell] = 0;
+      children[4 * cell] = -1;
+      body[cell] = -1;
+      return cell;
+    }
+
+    private void grow() {
+      int capacity = body.length * 2;
+      cx = Arrays.copyOf(cx, capacity);
+      cy = Arrays.copyOf(cy, capacity);
+      half = Arrays.copyOf(half, capacity);
+      mass = Arrays.copyOf(mass, capacity);
+      mx = Arrays.copyOf(mx, capacity);
+      my = Arrays.copyOf(my, capacity);
+      children = Arrays.copyOf(children, 4 * capacity);
+      body = Arrays.copyOf(body, capacity);
+    }
+
+    private void insert(int i, double[] x, double[] y) {
+      int cell = 0;
+      for (int depth = 0; ; depth++) {
+        if (children[4 * cell] < 0) {
+          if (mass[cell] == 0) {
+            body[cell] = i;
+            add(cell, x[i], y[i]);
+            return;
+          } else if (depth >= MAX_DEPTH) {
+            add(cell, x[i], y[i]);
+            return;
+          }
+          split(cell, x, y);
+        }
+        add(cell, x[i], y[i]);
+        cell = children[4 * cell + quadrant(cell, x[i], y[i])];
+      }
+    }
+
+    /*
+     * Turns a leaf into an inner cell and moves its node into the matching child.
+     */
+    private void split(int cell, double[] x, double[] y) {
+      double quarter = half[cell] / 2;
+      int first = -1;
+      for (int q = 0; q < 4; q++) {
+        int child =
+            newCell(
+                cx[cell] + ((q & 1) == 0 ? -quarter : quarter),
+                cy[cell] + ((q & 2) == 0 ? -quarter : quarter),
+                quarter);
+        if (q == 0) {
+          first = child;
+        }
+      }
+      for (int q = 0; q < 4; q++) {
+        children[4 * cell + q] = first + q;
+      }
+      int moved = body[cell];
+      body[cell] = -1;
+      int child = children[4 * cell + quadrant(cell, x[moved], y[moved])];
+      body[child] = moved;
+      mass[child] = mass[cell];
+      mx[child] = mx[cell];
+      my[child] = my[cell];
+    }
+
+    private int quadrant(int cell, double x, double y) {
+      return (x < cx[cell] ? 0 : 1) | (y < cy[cell] ? 0 : 2);
+    }
+
+    private void add(int cell, double x, double y) {
+      double total = mass[cell] + 1;
+      mx[cell] += (x - mx[cell]) / total;
+      my[cell] += (y - my[cell]) / total;
+      mass[cell] = total;
+    }
+
+    /*
+     * Computes the repulsive force of all other nodes on node i, 1 / distance for each node, into
+     * the force arrays.
+     */
+    private void repulsion(int i, double x, double y, double[] dx, double[] dy) {
+      double fx = 0;
+      double fy = 0;
+      int[] stack = STACKS.get();
+      int size = 0;
+      stack[size++] = 0;
+      while (size > 0) {
+        int cell = stack[--size];
+        double ex = x - mx[cell];
+        double ey = y - my[cell];
+        double distance2 = ex * ex + ey * ey;
+        boolean leaf = children[4 * cell] < 0;
+        if (leaf || 4 * half[cell] * half[cell] < THETA * THETA * distance2) {
+          double m = leaf && body[cell] == i ? mass[cell] - 1 : mass[cell];
+          if (m <= 0) {
+            continue;
+          }
+          if (distance2 < MIN_DISTANCE * MIN_DISTANCE) {
+            // Nodes at the same position are pushed apart in a direction given by the index
+            ex = Math.cos(i);
+            ey = Math.sin(i);
+            distance2 = MIN_DISTANCE;
+          }
+          fx += ex * m / distance2;
+          fy += ey * m / distance2;
+        } else {
+          for (int q = 0; q < 4; q++) {
+            stack[size++] = children[4 * cell + q];
+          }
+        }
+      }
+      dx[i] = fx;
+      dy[i] = fy;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package ust.tad.visualizationservice.layout;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ust.tad.visualizationservice.metrics.DotProcessUsage;
+import ust.tad.visualizationservice.metrics.TaskMetrics;
+
+/**
+ * Micro-batches the graphs laid out with GraphVIZ, so that graphs requested at about the same time
+ * share one dot process and its startup cost. The first graph of a batch waits for the batch window
+ * or until the batch is full, then its thread writes all graphs of the batch as separately named
+ * graphs to one dot process and hands each caller the layout of its graph, as dot writes the
+ * layouts in the order of the input. The usage of the process is added to the metrics of each task
+ * with a graph in the batch.
+ *
+ * <p>Only graphs of different tasks share a process. The connected components of one task are laid
+ * out in parallel by separate processes, so they are not collected back into one.
+ */
+@Component
+public class GraphvizBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GraphvizBatcher.class);
+
+  @Autowired private GraphvizRunner graphvizRunner;
+
+  private final int maxGraphs;
+
+  private final long window;
+
+  private final Object lock = new Object();
+
+  private Batch open;
+
+  public GraphvizBatcher(
+      @Value("${graphviz.batch.max-graphs:1}") int maxGraphs,
+      @Value("${graphviz.batch.window-ms:5}") long windowMs) {
+    this.maxGraphs = maxGraphs;
+    this.window = TimeUnit.MILLISECONDS.toNanos(windowMs);
+  }
+
+  /** Writes a graph with the given name in the DOT language. */
+  @FunctionalInterface
+  public interface GraphWriter {
+    void write(Writer writer, String name) throws IOException;
+  }
+
+  private static final class Request {
+    private final GraphWriter graph;
+    private final long deadline;
+    private final TaskMetrics metrics;
+    private final CompletableFuture<PlainLayout> layout = new CompletableFuture<>();
+
+    private Request(GraphWriter graph, long deadline, TaskMetrics metrics) {
+      this.graph = graph;
+      this.deadline = deadline;
+      this.metrics = metrics;
+    }
+  }
+
+  private static final class Batch {
+    private final List<Request> requests = new ArrayList<>();
+
+    private boolean contains(TaskMetrics metrics) {
+      return requests.stream().anyMatch(request -> request.metrics == metrics);
+    }
+  }
+
+  /**
+   * Lays out a graph with GraphVIZ, possibly together with the graphs of other callers.
+   *
+   * @param graph Writes the graph in the DOT language.
+   * @param deadline The value of System.nanoTime() at which the layout must be finished.
+   * @param metrics The metrics of the task of the graph, they identify the task within a batch.
+   * @return The layout of the graph.
+   * @throws LayoutTimeoutException if dot did not finish before the deadline.
+   */
+  public PlainLayout layout(GraphWriter graph, long deadline, TaskMetrics metrics) {
+    Request request = new Request(graph, deadline, metrics);
+    if (maxGraphs <= 1 || window <= 0) {
+      return layoutAlone(request);
+    }
+    Batch batch;
+    boolean leader;
+    synchronized (lock) {
+      if (open != null && open.contains(metrics)) {
+        batch = null;
+        leader = false;
+      } else {
+        leader = open == null;
+        if (leader) {
+          open = new Batch();
+        }
+        batch = open;
+        batch.requests.add(request);
+        if (batch.requests.size() >= maxGraphs) {
+          open = null;
+          lock.notifyAll();
+        }
+      }
+    }
+    if (batch == null) {
+      return layoutAlone(request);
+    }
+    if (leader) {
+      try {
+        awaitBatch(batch);
+        layoutBatch(batch.requests);
+      } finally {
+        // If the leader failed with an Error, the other callers must not wait for it forever
+        synchronized (lock) {
+          if (open == batch) {
+            open = null;
+          }
+        }
+        for (Request batched : batch.requests) {
+          batched.layout.completeExceptionally(
+              new IllegalStateException("The batch of the graph was not laid out"));
+        }
+      }
+    }
+
+    PlainLayout layout;
+    try {
+      layout = request.layout.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    // The batch failed for another reason or before the deadline of this graph, so it is laid out
+    // alone
+    return layout != null ? layout : layoutAlone(request);
+  }
+
+  /*
+   * Waits until the batch is full or its window passed and closes it.
+   */
+  private void awaitBatch(Batch batch) {
+    try {
+      synchronized (lock) {
+        long end = System.nanoTime() + window;
+        long remaining = window;
+        while (open == batch && remaining > 0) {
+          TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+          remaining = end - System.nanoTime();
+        }
+        if (open == batch) {
+          open = null;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      synchronized (lock) {
+        if (open == batch) {
+          open = null;
+        }
+      }
+    }
+  }
+
+  /*
+   * Lays out all graphs of a batch with one dot process and completes their requests. If the
+   * process fails for another reason than the deadline, the requests are completed with null, so
+   * that the callers lay out their graphs alone and only the invalid graph fails. If the process
+   * does not finish before the earliest deadline of the batch, only the requests whose deadline
+   * passed fail, the others are laid out alone until their own deadline.
+   */
+  private void layoutBatch(List<Request> requests) {
+    if (requests.size() == 1) {
+      Request request = requests.get(0);
+      try {
+        request.layout.complete(layoutAlone(request));
+      } catch (RuntimeException e) {
+        request.layout.completeExceptionally(e);
+      }
+      return;
+    }
+    long deadline = Long.MAX_VALUE;
+    for (Request request : requests) {
+      deadline = Math.min(deadline, request.deadline);
+    }
+    try {
+      List<PlainLayout> layouts =
+          graphvizRunner.run(
+              writer -> {
+                for (int i = 0; i < requests.size(); i++) {
+                  requests.get(i).graph.write(writer, "g" + i);
+                }
+              },
+              reader -> PlainParser.parse(reader, requests.size()),
+              deadline,
+              usage -> addUsage(requests, usage));
+      LOG.debug("Laid out {} graphs with one dot process", requests.size());
+      for (int i = 0; i < requests.size(); i++) {
+        requests.get(i).layout.complete(layouts.get(i));
+      }
+    } catch (LayoutTimeoutException e) {
+      // The process is killed at the earliest deadline of the batch, the other graphs still have
+      // time to be laid out alone
+      long now = System.nanoTime();
+      for (Request request : requests) {
+        if (request.deadline - now <= 0) {
+          request.layout.completeExceptionally(e);
+        } else {
+          request.layout.complete(null);
+        }
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Laying out a batch of {} graphs failed: {}", requests.size(), e.getMessage());
+      for (Request request : requests) {
+        request.layout.complete(null);
+      }
+    }
+  }
+
+  private PlainLayout layoutAlone(Request request) {
+    return graphvizRunner.run(
+        writer -> request.graph.write(writer, "g0"),
+        PlainParser::parse,
+        request.deadline,
+        request.metrics::addDotProcess);
+  }
+
+  /*
+   * Adds the usage of a process to each task of the batch, each task has one graph in the batch.
+   */
+  private static void addUsage(List<Request> requests, DotProcessUsage usage) {
+    for (Request request : requests) {
+      request.metrics.addDotProcess(usage);
+    }
+  }
+}
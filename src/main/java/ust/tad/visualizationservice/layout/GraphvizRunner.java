@@ -0,0 +1,355 @@
+package ust.tad.visualizationservice.layout;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ust.tad.visualizationservice.metrics.DotProcessUsage;
+import ust.tad.visualizationservice.metrics.PipelineMetrics;
+import ust.tad.visualizationservice.metrics.PipelineMetrics.Stage;
+
+/**
+ * Runs dot as supervised subprocess. The plain output is parsed from stdout on the calling thread,
+ * while the input is streamed to stdin and stderr is drained concurrently, so that dot cannot block
+ * on a full pipe. A process that is still running at the deadline is killed together with its
+ * descendants, a process that exits with an error is reported with its stderr. The number of
+ * concurrently running processes is bounded for the whole service. The CPU time and the peak
+ * resident set size of each process are sampled periodically from ProcessHandle and /proc, as they
+ * are no longer available once the process exited. The sampling and the kill at the deadline run on
+ * the sample scheduler and are cancelled when the process finished.
+ */
+@Component
+public class GraphvizRunner {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GraphvizRunner.class);
+
+  /** The number of bytes of stderr kept for the error message. */
+  private static final int MAX_STDERR = 4096;
+
+  @Autowired private ThreadPoolTaskExecutor graphvizStreamTaskExecutor;
+
+  @Autowired private ThreadPoolTaskScheduler graphvizSampleTaskScheduler;
+
+  @Autowired private PipelineMetrics pipelineMetrics;
+
+  private final String command;
+
+  private final Semaphore processes;
+
+  private final Duration sampleInterval;
+
+  public GraphvizRunner(
+      @Value("${graphviz.command:dot}") String command,
+      @Value("${graphviz.max-processes:4}") int maxProcesses,
+      @Value("${graphviz.usage.sample-interval-ms:20}") long sampleIntervalMs) {
+    this.command = command;
+    this.processes = new Semaphore(maxProcesses, true);
+    this.sampleInterval = Duration.ofMillis(sampleIntervalMs);
+  }
+
+  /** Writes the input of a dot process. */
+  @FunctionalInterface
+  public interface InputWriter {
+    void write(Writer writer) throws IOException;
+  }
+
+  /** Parses the output of a dot process. */
+  @FunctionalInterface
+  public interface OutputParser<T> {
+    T parse(Reader reader) throws IOException;
+  }
+
+  /**
+   * Runs dot with plain output. If all process slots are taken, the call waits for a free slot
+   * until the deadline.
+   *
+   * @param input Writes the DOT text to the stdin of the process.
+   * @param output Parses the plain output from the stdout of the process.
+   * @param deadline The value of System.nanoTime() at which the process must have finished.
+   * @param usage Receives the durations and resource usage of the process, if it succeeded.
+   * @return The parsed output.
+   * @throws LayoutTimeoutException if the process did not finish before the deadline.
+   */
+  public <T> T run(
+      InputWriter input, OutputParser<T> output, long deadline, Consumer<DotProcessUsage> usage) {
+    try {
+      if (!processes.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        throw new LayoutTimeoutException(
+            "No GraphVIZ process slot became free before the deadline");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    try {
+      return supervise(input, output, deadline, usage);
+    } finally {
+      processes.release();
+    }
+  }
+
+  private <T> T supervise(
+      InputWriter input, OutputParser<T> output, long deadline, Consumer<DotProcessUsage> usage) {
+    Process process;
+    long start = System.nanoTime();
+    try {
+      process = new ProcessBuilder(command, "-Tplain").start();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    AtomicBoolean killed = new AtomicBoolean();
+    ScheduledFuture<?> watchdog =
+        graphvizSampleTaskScheduler.schedule(
+            () -> {
+              if (process.isAlive()) {
+                killed.set(true);
+                destroy(process);
+              }
+            },
+            Instant.now().plusNanos(deadline - System.nanoTime()));
+    Future<String> errors =
+        graphvizStreamTaskExecutor.submit(() -> drain(process.getErrorStream()));
+    Sampler sampler = new Sampler(process);
+    ScheduledFuture<?> sampling =
+        sampleInterval.isZero()
+            ? null
+            : graphvizSampleTaskScheduler.scheduleAtFixedRate(sampler::sample, sampleInterval);
+
+    // dot writes the output of each graph before it reads the next one, so the input is written
+    // concurrently to reading the output, otherwise both pipes could fill up
+    Future<Long> writing = graphvizStreamTaskExecutor.submit(() -> write(process, input));
+
+    try {
+      long parseStart = System.nanoTime();
+      T result;
+      WaitingInputStream stdout = new WaitingInputStream(process.getInputStream());
+      try (Reader reader = new InputStreamReader(stdout, StandardCharsets.UTF_8)) {
+        result = output.parse(reader);
+        sampler.sample();
+        reader.transferTo(Writer.nullWriter());
+      }
+      long parseEnd = System.nanoTime();
+      long layoutNanos = stdout.waitingNanos;
+      long parseNanos = parseEnd - parseStart - layoutNanos;
+      long writeNanos = written(writing);
+      if (!process.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        killed.set(true);
+      }
+      long end = System.nanoTime();
+      // The output of a killed process is incomplete, even if it could be parsed
+      if (killed.get()) {
+        throw new LayoutTimeoutException("GraphVIZ did not finish before the deadline");
+      }
+      String stderr = stderr(errors);
+      if (process.exitValue() != 0) {
+        throw new IOException("dot exited with code " + process.exitValue() + ": " + stderr);
+      } else if (!stderr.isEmpty()) {
+        LOG.debug("dot: {}", stderr);
+      }
+      pipelineMetrics.record(Stage.DOT_WRITE, writeNanos);
+      pipelineMetrics.record(Stage.DOT_LAYOUT, layoutNanos);
+      pipelineMetrics.record(Stage.PLAIN_PARSE, parseNanos);
+      pipelineMetrics.record(Stage.DOT_EXECUTION, end - start);
+      usage.accept(
+          new DotProcessUsage(
+              writeNanos,
+              layoutNanos,
+              parseNanos,
+              end - start,
+              sampler.cpuNanos,
+              sampler.peakRssBytes));
+      return result;
+    } catch (IOException e) {
+      if (killed.get()) {
+        throw new LayoutTimeoutException("GraphVIZ did not finish before the deadline");
+      }
+      throw new RuntimeException(withExitCode(process, errors, e));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      watchdog.cancel(false);
+      writing.cancel(true);
+      if (sampling != null) {
+        sampling.cancel(false);
+      }
+      if (process.isAlive()) {
+        destroy(process);
+      }
+    }
+  }
+
+  /*
+   * Keeps the largest CPU time and peak resident set size sampled from a running process. The peak
+   * resident set size is read from /proc on Linux and unknown elsewhere.
+   */
+  private static final class Sampler {
+    private final ProcessHandle process;
+    private final Path status;
+    private volatile long cpuNanos = -1;
+    private volatile long peakRssBytes = -1;
+
+    private Sampler(Process process) {
+      this.process = process.toHandle();
+      this.status = Paths.get("/proc", Long.toString(process.pid()), "status");
+    }
+
+    private synchronized void sample() {
+      if (!process.isAlive()) {
+        return;
+      }
+      process
+          .info()
+          .totalCpuDuration()
+          .ifPresent(cpu -> cpuNanos = Math.max(cpuNanos, cpu.toNanos()));
+      try {
+        for (String line : Files.readAllLines(status)) {
+          if (line.startsWith("VmHWM:")) {
+            long kilobytes = Long.parseLong(line.substring(6).replace("kB", "").trim());
+            peakRssBytes = Math.max(peakRssBytes, kilobytes * 1024);
+          }
+        }
+      } catch (IOException | NumberFormatException e) {
+        // The process exited or the platform has no /proc
+      }
+    }
+  }
+
+  /*
+   * Sums the time spent blocked in reading stdout, i.e. waiting for dot to lay out the graphs, so
+   * that it can be told apart from the time spent parsing the output.
+   */
+  private static final class WaitingInputStream extends FilterInputStream {
+    private long waitingNanos;
+
+    private WaitingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      long start = System.nanoTime();
+      try {
+        return super.read();
+      } finally {
+        waitingNanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      long start = System.nanoTime();
+      try {
+        return super.read(buffer, offset, length);
+      } finally {
+        waitingNanos += System.nanoTime() - start;
+      }
+    }
+  }
+
+  /*
+   * Writes the input to the stdin of the process and closes it.
+   * @return The duration of writing in nanoseconds.
+   */
+  private static long write(Process process, InputWriter input) throws IOException {
+    long start = System.nanoTime();
+    try (Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
+      input.write(writer);
+    }
+    return System.nanoTime() - start;
+  }
+
+  /*
+   * Waits for the input to be written, the process has closed its stdout at this point.
+   */
+  private static long written(Future<Long> writing) throws IOException, InterruptedException {
+    try {
+      return writing.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /*
+   * Adds the exit code and stderr of the process to an exception, if the output could not be read
+   * because dot failed.
+   */
+  private static IOException withExitCode(
+      Process process, Future<String> errors, IOException exception) {
+    try {
+      if (process.waitFor(1, TimeUnit.SECONDS) && process.exitValue() != 0) {
+        return new IOException(
+            "dot exited with code " + process.exitValue() + ": " + stderr(errors), exception);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return exception;
+  }
+
+  private static void destroy(Process process) {
+    process.descendants().forEach(ProcessHandle::destroyForcibly);
+    process.destroyForcibly();
+  }
+
+  /*
+   * Reads the stream until its end and keeps the first bytes for the error message.
+   */
+  private static String drain(InputStream stream) throws IOException {
+    ByteArrayOutputStream kept = new ByteArrayOutputStream();
+    byte[] buffer = new byte[MAX_STDERR];
+    try (stream) {
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        kept.write(buffer, 0, Math.min(read, MAX_STDERR - kept.size()));
+      }
+    }
+    return kept.toString(StandardCharsets.UTF_8).trim();
+  }
+
+  /*
+   * Waits briefly for the drained stderr of an exited process, a descendant may still hold the
+   * pipe open.
+   */
+  private static String stderr(Future<String> errors) throws InterruptedException {
+    try {
+      return errors.get(1, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      errors.cancel(true);
+      return "";
+    }
+  }
+}
@@ -0,0 +1,307 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+/**
+ * Updates the layout of a previous task of the same transformation process instead of computing a
+ * new one. Nodes that exist in the previous layout and have the same relations to the other nodes
+ * of both layouts keep their position, so the diagram does not change for unchanged parts of the
+ * model. Added nodes and nodes that lost or gained such a relation are placed next to their already
+ * placed neighbours: below the node they are hosted on, above the nodes hosted on them, or to the
+ * right of the nodes they connect to, moved sideways until they do not overlap another node. Nodes
+ * without placed neighbours start a new column to the right.
+ */
+@Component
+public class IncrementalLayoutEngine {
+
+  /**
+   * Computes the incremental layout of a graph.
+   *
+   * @param graph The layout graph.
+   * @param prior The layout of the previous task.
+   * @param options The layout options of the task.
+   * @param maxChangedRatio The maximum ratio of nodes that may be placed anew.
+   * @return The layout, or null if no node or too many nodes would be placed anew, so that a full
+   *     layout is needed.
+   */
+  public Layout layout(
+      LayoutGraph graph, PriorLayout prior, LayoutOptions options, double maxChangedRatio) {
+    Map<String, Set<String>> neighbours = neighbours(graph);
+    Set<String> nodes = new HashSet<>(graph.getNodes());
+    Map<String, int[]> positions = new HashMap<>();
+    List<String> changed = new ArrayList<>();
+    for (String node : graph.getNodes()) {
+      int[] position = prior.getPositions().get(node);
+      if (position != null && sameRelations(node, neighbours, prior, nodes)) {
+        positions.put(node, position.clone());
+      } else {
+        changed.add(node);
+      }
+    }
+    if (positions.isEmpty() || changed.size() > maxChangedRatio * graph.getNodes().size()) {
+      return null;
+    }
+
+    double[] nodeSize = options.getNodeSize();
+    int columnStep = options.convertInchesToPixels(nodeSize[0] + 0.25);
+    int rowStep = options.convertInchesToPixels(nodeSize[1] + 0.5);
+    Grid grid = new Grid(columnStep, rowStep);
+    int maxX = Integer.MIN_VALUE;
+    int minY = Integer.MAX_VALUE;
+    for (int[] position : positions.values()) {
+      grid.add(position);
+      maxX = Math.max(maxX, position[0]);
+      minY = Math.min(minY, position[1]);
+    }
+
+    Map<String, List<String>> hostedBy = new HashMap<>();
+    addEdges(graph.getHostedOn(), hostedBy, false, true);
+    Map<String, List<String>> connected = new HashMap<>();
+    addEdges(graph.getConnectsTo(), connected, true, true);
+    Map<String, List<String>> adjacent = new HashMap<>();
+    addEdges(graph.getHostedOn(), adjacent, true, true);
+    addEdges(graph.getConnectsTo(), adjacent, true, true);
+
+    Set<String> unplaced = new HashSet<>(changed);
+    Deque<String> queue = new ArrayDeque<>();
+    for (String node : changed) {
+      if (hasPlacedNeighbour(node, adjacent, positions)) {
+        queue.add(node);
+      }
+    }
+    int next = 0;
+    while (!unplaced.isEmpty()) {
+      String node = queue.poll();
+      int[] preferred;
+      if (node == null) {
+        while (!unplaced.contains(changed.get(next))) {
+          next++;
+        }
+        node = changed.get(next);
+        preferred = new int[] {maxX + columnStep, minY};
+      } else if (unplaced.contains(node)) {
+        preferred =
+            preferredPosition(
+                node, graph.getHostedOn(), hostedBy, connected, positions, columnStep, rowStep);
+        if (preferred == null) {
+          preferred = new int[] {maxX + columnStep, minY};
+        }
+      } else {
+        continue;
+      }
+      int[] position = grid.free(preferred, columnStep);
+      positions.put(node, position);
+      grid.add(position);
+      maxX = Math.max(maxX, position[0]);
+      unplaced.remove(node);
+      for (String neighbour : adjacent.getOrDefault(node, Collections.emptyList())) {
+        if (unplaced.contains(neighbour)) {
+          queue.add(neighbour);
+        }
+      }
+    }
+
+    Set<String> changedNodes = new HashSet<>(changed);
+    Map<String, Map<String, int[]>> routes = new HashMap<>();
+    for (Map.Entry<String, Map<String, int[]>> source : prior.getRoutes().entrySet()) {
+      if (!positions.containsKey(source.getKey()) || changedNodes.contains(source.getKey())) {
+        continue;
+      }
+      for (Map.Entry<String, int[]> target : source.getValue().entrySet()) {
+        if (positions.containsKey(target.getKey()) && !changedNodes.contains(target.getKey())) {
+          routes
+              .computeIfAbsent(source.getKey(), key -> new HashMap<>())
+              .put(target.getKey(), target.getValue().clone());
+        }
+      }
+    }
+    return new Layout(positions, routes, LayoutStrategy.INCREMENTAL);
+  }
+
+  /*
+   * The position next to the placed neighbours of a node: below its host, above a node hosted on
+   * it, or right of the center of the nodes it is connected with.
+   */
+  private static int[] preferredPosition(
+      String node,
+      Map<String, List<String>> hosts,
+      Map<String, List<String>> hostedBy,
+      Map<String, List<String>> connected,
+      Map<String, int[]> positions,
+      int columnStep,
+      int rowStep) {
+    for (String host : hosts.getOrDefault(node, Collections.emptyList())) {
+      int[] position = positions.get(host);
+      if (position != null) {
+        return new int[] {position[0], position[1] + rowStep};
+      }
+    }
+    for (String hosted : hostedBy.getOrDefault(node, Collections.emptyList())) {
+      int[] position = positions.get(hosted);
+      if (position != null) {
+        return new int[] {position[0], position[1] - rowStep};
+      }
+    }
+    long x = 0;
+    long y = 0;
+    int count = 0;
+    for (String other : connected.getOrDefault(node, Collections.emptyList())) {
+      int[] position = positions.get(other);
+      if (position != null) {
+        x += position[0];
+        y += position[1];
+        count++;
+      }
+    }
+    if (count == 0) {
+      return null;
+    }
+    return new int[] {(int) (x / count) + columnStep, (int) (y / count)};
+  }
+
+  /*
+   * Checks whether a node has the same relations as in the previous layout. Relations to removed
+   * nodes may be lost and relations to added nodes may be gained, as the added nodes are placed
+   * next to the node, but a lost or gained relation to another node of both layouts re-connects it.
+   */
+  private static boolean sameRelations(
+      String node, Map<String, Set<String>> neighbours, PriorLayout prior, Set<String> nodes) {
+    Set<String> current = neighbours.getOrDefault(node, Collections.emptySet());
+    Set<String> previous = prior.getNeighbours().getOrDefault(node, Collections.emptySet());
+    for (String neighbour : previous) {
+      if (!current.contains(neighbour) && nodes.contains(nameOf(neighbour))) {
+        return false;
+      }
+    }
+    for (String neighbour : current) {
+      if (!previous.contains(neighbour) && prior.getPositions().containsKey(nameOf(neighbour))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * The name of the node in a neighbour entry, which follows the relation type and direction.
+   */
+  private static String nameOf(String neighbour) {
+    int i = 0;
+    while (neighbour.charAt(i) != '>' && neighbour.charAt(i) != '<') {
+      i++;
+    }
+    return neighbour.substring(i + 1);
+  }
+
+  private static boolean hasPlacedNeighbour(
+      String node, Map<String, List<String>> adjacent, Map<String, int[]> positions) {
+    for (String neighbour : adjacent.getOrDefault(node, Collections.emptyList())) {
+      if (positions.containsKey(neighbour)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * The neighbours of each node in the form of the PriorLayout.
+   */
+  private static Map<String, Set<String>> neighbours(LayoutGraph graph) {
+    PriorLayout current = new PriorLayout();
+    for (Map.Entry<String, List<String>> entry : graph.getHostedOn().entrySet()) {
+      for (String target : entry.getValue()) {
+        current.addEdge("host", entry.getKey(), target);
+      }
+    }
+    for (Map.Entry<String, List<String>> entry : graph.getConnectsTo().entrySet()) {
+      for (String target : entry.getValue()) {
+        current.addEdge("connect", entry.getKey(), target);
+      }
+    }
+    return current.getNeighbours();
+  }
+
+  /*
+   * Adds the edges to the adjacency lists of their sources and, if reverse, of their targets.
+   */
+  private static void addEdges(
+      Map<String, List<String>> edges,
+      Map<String, List<String>> adjacent,
+      boolean forward,
+      boolean reverse) {
+    for (Map.Entry<String, List<String>> entry : edges.entrySet()) {
+      for (String target : entry.getValue()) {
+        if (forward) {
+          adjacent.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(target);
+        }
+        if (reverse) {
+          adjacent.computeIfAbsent(target, key -> new ArrayList<>()).add(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /*
+   * Hashes the placed nodes into cells of the size of a node including its separation, so that a
+   * position can be checked for overlaps with the nodes of the surrounding cells only.
+   */
+  private static final class Grid {
+    private final int width;
+    private final int height;
+    private final Map<Long, List<int[]>> cells = new HashMap<>();
+
+    private Grid(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    private void add(int[] position) {
+      cells
+          .computeIfAbsent(
+              cell(Math.floorDiv(position[0], width), Math.floorDiv(position[1], height)),
+              key -> new ArrayList<>())
+          .add(position);
+    }
+
+    /*
+     * Moves the position alternately right and left in steps until it does not overlap a node.
+     */
+    private int[] free(int[] position, int step) {
+      for (int i = 0; ; i++) {
+        int offset = (i % 2 == 0 ? 1 : -1) * ((i + 1) / 2) * step;
+        int[] candidate = {position[0] + offset, position[1]};
+        if (!overlaps(candidate)) {
+          return candidate;
+        }
+      }
+    }
+
+    private boolean overlaps(int[] position) {
+      int column = Math.floorDiv(position[0], width);
+      int row = Math.floorDiv(position[1], height);
+      for (int i = column - 1; i <= column + 1; i++) {
+        for (int j = row - 1; j <= row + 1; j++) {
+          for (int[] other : cells.getOrDefault(cell(i, j), Collections.emptyList())) {
+            if (Math.abs(other[0] - position[0]) < width
+                && Math.abs(other[1] - position[1]) < height) {
+              return true;
+            }
+          }
+        }
+      }
+      return false;
+    }
+
+    private static long cell(int column, int row) {
+      return ((long) column << 32) ^ (row & 0xffffffffL);
+    }
+  }
+}
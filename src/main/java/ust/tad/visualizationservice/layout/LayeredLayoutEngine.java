@@ -0,0 +1,534 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process layered layout engine in the style of Sugiyama et al. It computes the same kind of
+ * layout as "dot" for the graphs built by the LayoutService: HostedOn stacks are drawn top-down,
+ * ConnectsTo relations are placed in between. The coordinates are the centers of the nodes in
+ * inches with the origin in the lower left corner, like the output of "dot -Tplain".
+ */
+@Component
+public class LayeredLayoutEngine {
+
+  private static final double NODE_SEPARATION = 0.25;
+  private static final double MIN_NODE_SEPARATION = 0.05;
+  private static final double RANK_SEPARATION = 0.5;
+  private static final double MIN_RANK_SEPARATION = 0.1;
+  private static final int ORDERING_ITERATIONS = 24;
+  private static final int ORDERING_ITERATIONS_LARGE_GRAPHS = 4;
+  private static final int LARGE_GRAPH_SIZE = 5000;
+  private static final int POSITIONING_ITERATIONS = 8;
+
+  /**
+   * Computes the layout of the given graph.
+   *
+   * <p>If flatten is "true", ConnectsTo relations do not influence the ranks of the nodes, so only
+   * the HostedOn stacks determine the vertical position. If flatten is "partial", the nodes in
+   * {@link LayoutGraph#getRankSame()} are placed on the same rank.
+   *
+   * @param graph The graph to lay out.
+   * @param flatten The flatten option of the task.
+   * @param nodeSize The width and height of a node in inches.
+   * @param graphSize The maximum width and height of the graph in inches.
+   * @return A map of the node names and the coordinates of their centers in inches.
+   */
+  public Map<String, double[]> layout(
+      LayoutGraph graph, String flatten, double[] nodeSize, double[] graphSize) {
+    Map<String, Integer> index = new LinkedHashMap<>();
+    for (String node : graph.getNodes()) {
+      index.putIfAbsent(node, index.size());
+    }
+    List<int[]> constraintEdges = new ArrayList<>();
+    List<int[]> otherEdges = new ArrayList<>();
+    addEdges(graph.getHostedOn(), index, constraintEdges);
+    addEdges(graph.getConnectsTo(), index, "true".equals(flatten) ? otherEdges : constraintEdges);
+
+    int n = index.size();
+    String[] names = index.keySet().toArray(new String[0]);
+    if (n == 0) {
+      return new LinkedHashMap<>();
+    }
+
+    int[] group = new int[n];
+    for (int i = 0; i < n; i++) {
+      group[i] = i;
+    }
+    if ("partial".equals(flatten) && !graph.getRankSame().isEmpty()) {
+      int representative = index.get(graph.getRankSame().get(0));
+      for (String node : graph.getRankSame()) {
+        group[index.get(node)] = representative;
+      }
+    }
+
+    int[] rank = rankNodes(n, group, constraintEdges);
+
+    List<int[]> edges = new ArrayList<>(constraintEdges);
+    edges.addAll(otherEdges);
+    LayeredGraph layered = new LayeredGraph(n, rank, edges);
+    layered.orderLayers(
+        n > LARGE_GRAPH_SIZE ? ORDERING_ITERATIONS_LARGE_GRAPHS : ORDERING_ITERATIONS);
+
+    double nodeSeparation =
+        compressSeparation(
+            graphSize[0], NODE_SEPARATION, MIN_NODE_SEPARATION, layered.widestLayer(nodeSize[0]));
+    int rankCount = layered.layers.size();
+    double rankSeparation = RANK_SEPARATION;
+    if (rankCount > 1 && graphSize[1] > 0) {
+      double available = (graphSize[1] - rankCount * nodeSize[1]) / (rankCount - 1);
+      rankSeparation = Math.max(MIN_RANK_SEPARATION, Math.min(RANK_SEPARATION, available));
+    }
+    double[] x = layered.positionNodes(nodeSize[0], nodeSeparation);
+
+    Map<String, double[]> output = new LinkedHashMap<>();
+    int maxRank = rankCount - 1;
+    for (int i = 0; i < n; i++) {
+      double y = (maxRank - layered.rank[i]) * (nodeSize[1] + rankSeparation) + nodeSize[1] / 2;
+      output.put(names[i], new double[] {x[i], y});
+    }
+    return output;
+  }
+
+  /*
+   * Adds the edges of the given adjacency map to the edge list. Unknown nodes are added to the
+   * index, self loops and duplicate edges are dropped as in a strict digraph.
+   */
+  private void addEdges(
+      Map<String, List<String>> adjacency, Map<String, Integer> index, List<int[]> edges) {
+    Set<Long> seen = new HashSet<>();
+    for (int[] edge : edges) {
+      seen.add(((long) edge[0] << 32) | edge[1]);
+    }
+    for (Map.Entry<String, List<String>> entry : adjacency.entrySet()) {
+      int source = index.computeIfAbsent(entry.getKey(), key -> index.size());
+      for (String targetName : entry.getValue()) {
+        int target = index.computeIfAbsent(targetName, key -> index.size());
+        if (source != target && seen.add(((long) source << 32) | target)) {
+          edges.add(new int[] {source, target});
+        }
+      }
+    }
+  }
+
+  /*
+   * Assigns a rank to every node. Nodes of the same group share a rank. Cycles are broken by
+   * reversing the back edges of a depth-first search, then each node is ranked by the longest path
+   * from a source. Sources are moved down to their highest-ranked successor afterwards to keep the
+   * edges short, and unused ranks are removed.
+   */
+  private int[] rankNodes(int n, int[] group, List<int[]> edges) {
+    List<List<Integer>> successors = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      successors.add(new ArrayList<>());
+    }
+    Set<Long> seen = new HashSet<>();
+    for (int[] edge : edges) {
+      int source = group[edge[0]];
+      int target = group[edge[1]];
+      if (source != target && seen.add(((long) source << 32) | target)) {
+        successors.get(source).add(target);
+      }
+    }
+    removeCycles(n, group, successors);
+
+    int[] inDegree = new int[n];
+    for (int i = 0; i < n; i++) {
+      for (int target : successors.get(i)) {
+        inDegree[target]++;
+      }
+    }
+    int[] groupRank = new int[n];
+    int[] topologicalOrder = new int[n];
+    int orderSize = 0;
+    Deque<Integer> queue = new ArrayDeque<>();
+    for (int i = 0; i < n; i++) {
+      if (group[i] == i && inDegree[i] == 0) {
+        queue.add(i);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      topologicalOrder[orderSize++] = node;
+      for (int target : successors.get(node)) {
+        groupRank[target] = Math.max(groupRank[target], groupRank[node] + 1);
+        if (--inDegree[target] == 0) {
+          queue.add(target);
+        }
+      }
+    }
+
+    int[] predecessorCount = new int[n];
+    for (int i = 0; i < n; i++) {
+      for (int target : successors.get(i)) {
+        predecessorCount[target]++;
+      }
+    }
+    for (int i = orderSize - 1; i >= 0; i--) {
+      int node = topologicalOrder[i];
+      if (predecessorCount[node] == 0 && !successors.get(node).isEmpty()) {
+        int minimum = Integer.MAX_VALUE;
+        for (int target : successors.get(node)) {
+          minimum = Math.min(minimum, groupRank[target]);
+        }
+        groupRank[node] = minimum - 1;
+      }
+    }
+
+    int[] usedRanks =
+        Arrays.stream(group)
+            .map(representative -> groupRank[representative])
+            .distinct()
+            .sorted()
+            .toArray();
+    int[] rank = new int[n];
+    for (int i = 0; i < n; i++) {
+      rank[i] = Arrays.binarySearch(usedRanks, groupRank[group[i]]);
+    }
+    return rank;
+  }
+
+  /*
+   * Reverses the back edges found by an iterative depth-first search, so that the graph becomes
+   * acyclic.
+   */
+  private void removeCycles(int n, int[] group, List<List<Integer>> successors) {
+    int[] state = new int[n];
+    List<int[]> reversed = new ArrayList<>();
+    for (int start = 0; start < n; start++) {
+      if (group[start] != start || state[start] != 0) {
+        continue;
+      }
+      Deque<int[]> stack = new ArrayDeque<>();
+      stack.push(new int[] {start, 0});
+      state[start] = 1;
+      while (!stack.isEmpty()) {
+        int[] frame = stack.peek();
+        List<Integer> targets = successors.get(frame[0]);
+        if (frame[1] < targets.size()) {
+          int target = targets.get(frame[1]);
+          if (state[target] == 1) {
+            reversed.add(new int[] {frame[0], frame[1]});
+          } else if (state[target] == 0) {
+            state[target] = 1;
+            stack.push(new int[] {target, 0});
+          }
+          frame[1]++;
+        } else {
+          state[frame[0]] = 2;
+          stack.pop();
+        }
+      }
+    }
+    for (int i = reversed.size() - 1; i >= 0; i--) {
+      int source = reversed.get(i)[0];
+      int target = successors.get(source).remove(reversed.get(i)[1]);
+      if (!successors.get(target).contains(source)) {
+        successors.get(target).add(source);
+      }
+    }
+  }
+
+  /*
+   * Reduces the separation between the nodes so that the widest layer fits into the available
+   * space, like ratio="compress" does for dot.
+   */
+  private double compressSeparation(
+      double available, double separation, double minimum, double[] widestLayer) {
+    if (available <= 0 || widestLayer[1] <= 1) {
+      return separation;
+    }
+    double compressed = (available - widestLayer[0]) / (widestLayer[1] - 1);
+    return Math.max(minimum, Math.min(separation, compressed));
+  }
+
+  /**
+   * The proper layered graph, in which edges spanning multiple ranks are split by dummy nodes. The
+   * first nodes are the real nodes of the graph, followed by the dummy nodes.
+   */
+  private static class LayeredGraph {
+
+    private final int realNodes;
+    private int[] rank;
+    private final List<List<Integer>> upper = new ArrayList<>();
+    private final List<List<Integer>> lower = new ArrayList<>();
+    private final List<List<Integer>> layers = new ArrayList<>();
+    private int[] position;
+
+    LayeredGraph(int realNodes, int[] realRank, List<int[]> edges) {
+      this.realNodes = realNodes;
+      List<Integer> ranks = new ArrayList<>();
+      for (int i = 0; i < realNodes; i++) {
+        ranks.add(realRank[i]);
+        upper.add(new ArrayList<>());
+        lower.add(new ArrayList<>());
+      }
+      for (int[] edge : edges) {
+        int source = edge[0];
+        int target = edge[1];
+        if (realRank[source] == realRank[target]) {
+          continue;
+        }
+        if (realRank[source] > realRank[target]) {
+          source = edge[1];
+          target = edge[0];
+        }
+        int previous = source;
+        for (int r = realRank[source] + 1; r < realRank[target]; r++) {
+          int dummy = ranks.size();
+          ranks.add(r);
+          upper.add(new ArrayList<>());
+          lower.add(new ArrayList<>());
+          connect(previous, dummy);
+          previous = dummy;
+        }
+        connect(previous, target);
+      }
+      rank = ranks.stream().mapToInt(Integer::intValue).toArray();
+      int maxRank = Arrays.stream(rank).max().orElse(0);
+      for (int r = 0; r <= maxRank; r++) {
+        layers.add(new ArrayList<>());
+      }
+      position = new int[rank.length];
+      boolean[] visited = new boolean[rank.length];
+      for (int i = 0; i < rank.length; i++) {
+        initialOrder(i, visited);
+      }
+    }
+
+    private void connect(int source, int target) {
+      if (!lower.get(source).contains(target)) {
+        lower.get(source).add(target);
+        upper.get(target).add(source);
+      }
+    }
+
+    /*
+     * Orders the nodes of each layer in depth-first order, so that stacks stay close together.
+     */
+    private void initialOrder(int start, boolean[] visited) {
+      Deque<Integer> stack = new ArrayDeque<>();
+      stack.push(start);
+      while (!stack.isEmpty()) {
+        int node = stack.pop();
+        if (visited[node]) {
+          continue;
+        }
+        visited[node] = true;
+        List<Integer> layer = layers.get(rank[node]);
+        position[node] = layer.size();
+        layer.add(node);
+        List<Integer> children = lower.get(node);
+        for (int i = children.size() - 1; i >= 0; i--) {
+          if (!visited[children.get(i)]) {
+            stack.push(children.get(i));
+          }
+        }
+      }
+    }
+
+    /*
+     * Reduces the edge crossings with the barycenter heuristic, sweeping down and up alternately.
+     * The ordering with the fewest crossings is kept.
+     */
+    void orderLayers(int iterations) {
+      double[] barycenter = new double[position.length];
+      List<List<Integer>> best = copyLayers();
+      long bestCrossings = countCrossings();
+      for (int iteration = 0; iteration < iterations && bestCrossings > 0; iteration++) {
+        if (iteration % 2 == 0) {
+          for (int r = 1; r < layers.size(); r++) {
+            sortByBarycenter(layers.get(r), upper, barycenter);
+          }
+        } else {
+          for (int r = layers.size() - 2; r >= 0; r--) {
+            sortByBarycenter(layers.get(r), lower, barycenter);
+          }
+        }
+        long crossings = countCrossings();
+        if (crossings < bestCrossings) {
+          bestCrossings = crossings;
+          best = copyLayers();
+        }
+      }
+      for (int r = 0; r < layers.size(); r++) {
+        List<Integer> layer = layers.get(r);
+        layer.clear();
+        layer.addAll(best.get(r));
+        for (int i = 0; i < layer.size(); i++) {
+          position[layer.get(i)] = i;
+        }
+      }
+    }
+
+    private void sortByBarycenter(
+        List<Integer> layer, List<List<Integer>> neighbors, double[] barycenter) {
+      for (int node : layer) {
+        List<Integer> fixed = neighbors.get(node);
+        if (fixed.isEmpty()) {
+          barycenter[node] = position[node];
+        } else {
+          double sum = 0;
+          for (int neighbor : fixed) {
+            sum += position[neighbor];
+          }
+          barycenter[node] = sum / fixed.size();
+        }
+      }
+      layer.sort((a, b) -> Double.compare(barycenter[a], barycenter[b]));
+      for (int i = 0; i < layer.size(); i++) {
+        position[layer.get(i)] = i;
+      }
+    }
+
+    private List<List<Integer>> copyLayers() {
+      List<List<Integer>> copy = new ArrayList<>(layers.size());
+      for (List<Integer> layer : layers) {
+        copy.add(new ArrayList<>(layer));
+      }
+      return copy;
+    }
+
+    /*
+     * Counts the crossings between all adjacent layers as the number of inversions of the edge
+     * targets, using a binary indexed tree.
+     */
+    private long countCrossings() {
+      long crossings = 0;
+      for (int r = 0; r + 1 < layers.size(); r++) {
+        List<int[]> edges = new ArrayList<>();
+        for (int node : layers.get(r)) {
+          for (int target : lower.get(node)) {
+            edges.add(new int[] {position[node], position[target]});
+          }
+        }
+        edges.sort(
+            (a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        int size = layers.get(r + 1).size();
+        int[] tree = new int[size + 1];
+        for (int i = 0; i < edges.size(); i++) {
+          int target = edges.get(i)[1];
+          int smallerOrEqual = 0;
+          for (int j = target + 1; j > 0; j -= j & -j) {
+            smallerOrEqual += tree[j];
+          }
+          crossings += i - smallerOrEqual;
+          for (int j = target + 1; j <= size; j += j & -j) {
+            tree[j]++;
+          }
+        }
+      }
+      return crossings;
+    }
+
+    /*
+     * Returns the summed width of the nodes and the number of nodes of the widest layer.
+     */
+    double[] widestLayer(double nodeWidth) {
+      double[] widest = {0, 0};
+      for (List<Integer> layer : layers) {
+        int real = 0;
+        for (int node : layer) {
+          if (node < realNodes) {
+            real++;
+          }
+        }
+        if (real * nodeWidth > widest[0]) {
+          widest[0] = real * nodeWidth;
+          widest[1] = layer.size();
+        }
+      }
+      return widest;
+    }
+
+    /*
+     * Assigns the horizontal coordinates. Each node is pulled to the mean position of its
+     * neighbors in the previous layer of the sweep, the nodes of a layer keep their order and
+     * separation.
+     */
+    double[] positionNodes(double nodeWidth, double separation) {
+      double[] x = new double[rank.length];
+      for (List<Integer> layer : layers) {
+        double current = 0;
+        for (int i = 0; i < layer.size(); i++) {
+          if (i > 0) {
+            current += gap(layer.get(i - 1), layer.get(i), nodeWidth, separation);
+          }
+          x[layer.get(i)] = current;
+        }
+        double offset = current / 2;
+        for (int node : layer) {
+          x[node] -= offset;
+        }
+      }
+
+      for (int iteration = 0; iteration < POSITIONING_ITERATIONS; iteration++) {
+        boolean down = iteration % 2 == 0;
+        for (int step = 1; step < layers.size(); step++) {
+          int r = down ? step : layers.size() - 1 - step;
+          List<Integer> layer = layers.get(r);
+          List<List<Integer>> neighbors = down ? upper : lower;
+          double[] desired = new double[layer.size()];
+          for (int i = 0; i < layer.size(); i++) {
+            int node = layer.get(i);
+            List<Integer> fixed = neighbors.get(node);
+            if (fixed.isEmpty()) {
+              desired[i] = x[node];
+            } else {
+              double sum = 0;
+              for (int neighbor : fixed) {
+                sum += x[neighbor];
+              }
+              desired[i] = sum / fixed.size();
+            }
+          }
+          double[] left = new double[layer.size()];
+          double[] right = new double[layer.size()];
+          for (int i = 0; i < layer.size(); i++) {
+            left[i] = desired[i];
+            if (i > 0) {
+              double minimum =
+                  left[i - 1] + gap(layer.get(i - 1), layer.get(i), nodeWidth, separation);
+              left[i] = Math.max(left[i], minimum);
+            }
+          }
+          for (int i = layer.size() - 1; i >= 0; i--) {
+            right[i] = desired[i];
+            if (i < layer.size() - 1) {
+              double maximum =
+                  right[i + 1] - gap(layer.get(i), layer.get(i + 1), nodeWidth, separation);
+              right[i] = Math.min(right[i], maximum);
+            }
+          }
+          for (int i = 0; i < layer.size(); i++) {
+            x[layer.get(i)] = (left[i] + right[i]) / 2;
+          }
+        }
+      }
+
+      double minimum = Double.MAX_VALUE;
+      for (int i = 0; i < realNodes; i++) {
+        minimum = Math.min(minimum, x[i] - nodeWidth / 2);
+      }
+      double[] result = new double[realNodes];
+      for (int i = 0; i < realNodes; i++) {
+        result[i] = x[i] - minimum;
+      }
+      return result;
+    }
+
+    private double gap(int left, int right, double nodeWidth, double separation) {
+      double leftWidth = left < realNodes ? nodeWidth : 0;
+      double rightWidth = right < realNodes ? nodeWidth : 0;
+      return (leftWidth + rightWidth) / 2 + separation;
+    }
+  }
+}
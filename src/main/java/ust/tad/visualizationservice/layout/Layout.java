@@ -0,0 +1,100 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of a layout in pixel coordinates. It contains the position of each node and, if the
+ * layout engine routes the edges, the route of each edge as a flat array of x and y coordinates.
+ * The strategy records how the layout was computed.
+ */
+public class Layout {
+
+  private final Map<String, int[]> positions;
+
+  private final Map<String, Map<String, int[]>> routes;
+
+  private final LayoutStrategy strategy;
+
+  public Layout(Map<String, int[]> positions) {
+    this(positions, new HashMap<>(), LayoutStrategy.LAYERED);
+  }
+
+  public Layout(
+      Map<String, int[]> positions,
+      Map<String, Map<String, int[]>> routes,
+      LayoutStrategy strategy) {
+    this.positions = positions;
+    this.routes = routes;
+    this.strategy = strategy;
+  }
+
+  /**
+   * The positions of the nodes.
+   *
+   * @return The x and y pixel coordinates by the name of the node.
+   */
+  public Map<String, int[]> getPositions() {
+    return this.positions;
+  }
+
+  /**
+   * The routes of the edges, grouped by the source of the edge.
+   *
+   * @return The routes by the name of the source and the name of the target.
+   */
+  public Map<String, Map<String, int[]>> getRoutes() {
+    return this.routes;
+  }
+
+  /**
+   * The strategy the layout was computed with.
+   *
+   * @return The layout strategy.
+   */
+  public LayoutStrategy getStrategy() {
+    return this.strategy;
+  }
+
+  /**
+   * The route of the edge between two nodes.
+   *
+   * @param source The name of the source node.
+   * @param target The name of the target node.
+   * @return The points of the route as x1, y1, x2, y2, ..., or null if the edge is not routed.
+   */
+  public int[] getRoute(String source, String target) {
+    return this.routes.getOrDefault(source, Collections.emptyMap()).get(target);
+  }
+
+  /**
+   * The number of nodes in the layout.
+   *
+   * @return The number of nodes.
+   */
+  public int size() {
+    return this.positions.size();
+  }
+
+  /**
+   * Creates a deep copy of the layout.
+   *
+   * @return The copy.
+   */
+  public Layout copy() {
+    Map<String, int[]> positionsCopy = new HashMap<>(positions.size() * 2);
+    for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+      positionsCopy.put(entry.getKey(), entry.getValue().clone());
+    }
+    Map<String, Map<String, int[]>> routesCopy = new HashMap<>();
+    for (Map.Entry<String, Map<String, int[]>> entry : routes.entrySet()) {
+      Map<String, int[]> targets = new HashMap<>();
+      for (Map.Entry<String, int[]> route : entry.getValue().entrySet()) {
+        targets.put(route.getKey(), route.getValue().clone());
+      }
+      routesCopy.put(entry.getKey(), targets);
+    }
+    return new Layout(positionsCopy, routesCopy, strategy);
+  }
+}
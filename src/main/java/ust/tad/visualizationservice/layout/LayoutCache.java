@@ -0,0 +1,189 @@
+package ust.tad.visualizationservice.layout;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU cache for computed layouts. The entries are keyed by a canonical fingerprint of the
+ * layout graph and the layout options, so a repeated layout of the same topology returns the stored
+ * pixel coordinates without invoking a layout engine. The size of the cache is bounded by the total
+ * number of cached node positions.
+ */
+@Component
+public class LayoutCache {
+
+  private final Map<String, Layout> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final boolean enabled;
+  private final long maxNodes;
+  private long cachedNodes;
+
+  public LayoutCache(
+      @Value("${layout.cache.enabled:true}") boolean enabled,
+      @Value("${layout.cache.max-nodes:100000}") long maxNodes,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.maxNodes = maxNodes;
+    FunctionCounter.builder("layout.cache.hits", hits, AtomicLong::get)
+        .description("Number of layouts served from the layout cache")
+        .register(meterRegistry);
+    FunctionCounter.builder("layout.cache.misses", misses, AtomicLong::get)
+        .description("Number of layouts that had to be computed")
+        .register(meterRegistry);
+    FunctionCounter.builder("layout.cache.evictions", evictions, AtomicLong::get)
+        .description("Number of layouts evicted from the layout cache")
+        .register(meterRegistry);
+    Gauge.builder("layout.cache.size", this, LayoutCache::size)
+        .description("Number of layouts in the layout cache")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Computes the canonical fingerprint of a layout. It only depends on the set of node names, the
+   * sets of HostedOn and ConnectsTo edges and the layout options, not on the order in which the
+   * components and relations are defined.
+   *
+   * @param graph The layout graph.
+   * @param options The layout options of the task.
+   * @return The hex encoded SHA-256 fingerprint.
+   */
+  public static String fingerprint(LayoutGraph graph, LayoutOptions options) {
+    MessageDigest digest = digest();
+    updateOptions(digest, options);
+    TreeSet<String> nodes = new TreeSet<>(graph.getNodes());
+    digest.update(ByteBuffer.allocate(4).putInt(nodes.size()).array());
+    for (String node : nodes) {
+      update(digest, node);
+    }
+    updateEdges(digest, graph.getHostedOn());
+    updateEdges(digest, graph.getConnectsTo());
+    return hex(digest);
+  }
+
+  /**
+   * Computes the fingerprint of the layout options alone. It is stored with the layout of a task,
+   * so that a later task of the transformation process only reuses the layout if its options are
+   * the same.
+   *
+   * @param options The layout options of the task.
+   * @return The hex encoded SHA-256 fingerprint.
+   */
+  public static String fingerprint(LayoutOptions options) {
+    MessageDigest digest = digest();
+    updateOptions(digest, options);
+    return hex(digest);
+  }
+
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(MessageDigest digest) {
+    StringBuilder fingerprint = new StringBuilder();
+    for (byte b : digest.digest()) {
+      fingerprint.append(String.format("%02x", b));
+    }
+    return fingerprint.toString();
+  }
+
+  private static void updateOptions(MessageDigest digest, LayoutOptions options) {
+    update(digest, String.valueOf(options.getDpi()));
+    update(digest, options.getFlatten());
+    update(digest, String.valueOf(options.getWidth()));
+    update(digest, String.valueOf(options.getHeight()));
+    update(digest, options.getEngine());
+  }
+
+  private static void updateEdges(MessageDigest digest, Map<String, List<String>> adjacency) {
+    TreeSet<String> edges = new TreeSet<>();
+    for (Map.Entry<String, List<String>> entry : adjacency.entrySet()) {
+      for (String target : entry.getValue()) {
+        edges.add(entry.getKey() + '\0' + target);
+      }
+    }
+    digest.update(ByteBuffer.allocate(4).putInt(edges.size()).array());
+    for (String edge : edges) {
+      update(digest, edge);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  /**
+   * Returns a copy of the cached layout for the given fingerprint.
+   *
+   * @param fingerprint The fingerprint of the layout.
+   * @return The layout, or null if the layout is not cached.
+   */
+  public synchronized Layout get(String fingerprint) {
+    if (!enabled) {
+      return null;
+    }
+    Layout layout = entries.get(fingerprint);
+    if (layout == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return layout.copy();
+  }
+
+  /**
+   * Stores a copy of the layout. The least recently used layouts are evicted until the cache fits
+   * into its bounds again.
+   *
+   * @param fingerprint The fingerprint of the layout.
+   * @param layout The layout.
+   */
+  public synchronized void put(String fingerprint, Layout layout) {
+    if (!enabled || layout.size() > maxNodes) {
+      return;
+    }
+    Layout previous = entries.put(fingerprint, layout.copy());
+    if (previous != null) {
+      cachedNodes -= previous.size();
+    }
+    cachedNodes += layout.size();
+
+    Iterator<Layout> iterator = entries.values().iterator();
+    while (cachedNodes > maxNodes && iterator.hasNext()) {
+      cachedNodes -= iterator.next().size();
+      iterator.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  /**
+   * The number of layouts in the cache.
+   *
+   * @return The number of cached layouts.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,204 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import ust.tad.visualizationservice.models.tadm.Component;
+import ust.tad.visualizationservice.models.tadm.Relation;
+
+/**
+ * The graph structure the layout engines operate on. It contains the names of all components and
+ * the HostedOn and ConnectsTo edges between them, grouped by their source component.
+ */
+public class LayoutGraph {
+
+  private final List<String> nodes = new ArrayList<>();
+
+  private final Map<String, List<String>> hostedOn = new LinkedHashMap<>();
+
+  private final Map<String, List<String>> connectsTo = new LinkedHashMap<>();
+
+  private final List<String> rankSame = new ArrayList<>();
+
+  public LayoutGraph() {}
+
+  /**
+   * Creates the layout graph from the components and relations of a TADM.
+   *
+   * @param components The components in the TADM.
+   * @param relationIndex The index of the relations in the TADM.
+   * @return The layout graph.
+   */
+  public static LayoutGraph fromModel(List<Component> components, RelationIndex relationIndex) {
+    LayoutGraph layoutGraph = new LayoutGraph();
+
+    for (Component component : components) {
+      layoutGraph.nodes.add(component.getName());
+    }
+
+    for (Relation relation : relationIndex.getRelations()) {
+      String relationType = relation.getType().getName();
+      String source = relation.getSource().getName();
+      String target = relation.getTarget().getName();
+
+      if (relationType.equals("HostedOn")) {
+        layoutGraph.hostedOn.computeIfAbsent(source, key -> new ArrayList<>()).add(target);
+      } else if (relationType.equals("ConnectsTo")) {
+        if (layoutGraph.connectsTo.containsKey(source)) {
+          layoutGraph.connectsTo.get(source).add(target);
+          if (!layoutGraph.rankSame.contains(source)) {
+            layoutGraph.rankSame.add(source);
+          }
+        } else {
+          List<String> targets = new ArrayList<>();
+          targets.add(target);
+          layoutGraph.connectsTo.put(source, targets);
+        }
+      }
+    }
+    return layoutGraph;
+  }
+
+  /**
+   * Splits the graph into its weakly connected components, where both HostedOn and ConnectsTo edges
+   * connect nodes.
+   *
+   * @return The node names of each component, the components and their nodes are in the order of
+   *     the nodes in the graph.
+   */
+  public List<List<String>> getConnectedComponents() {
+    Map<String, String> parents = new HashMap<>();
+    for (String node : nodes) {
+      parents.put(node, node);
+    }
+    union(parents, hostedOn);
+    union(parents, connectsTo);
+
+    Map<String, List<String>> components = new LinkedHashMap<>();
+    Set<String> visited = new HashSet<>();
+    for (String node : nodes) {
+      if (visited.add(node)) {
+        components.computeIfAbsent(find(parents, node), key -> new ArrayList<>()).add(node);
+      }
+    }
+    return new ArrayList<>(components.values());
+  }
+
+  /**
+   * Creates the subgraphs induced by the given disjoint sets of nodes in one pass over the graph.
+   * The order of the nodes and edges is kept, edges between different subgraphs are omitted.
+   *
+   * @param parts The names of the nodes of each subgraph.
+   * @return The subgraphs.
+   */
+  public List<LayoutGraph> subgraphs(List<? extends Collection<String>> parts) {
+    Map<String, LayoutGraph> subgraphOf = new HashMap<>();
+    List<LayoutGraph> subgraphs = new ArrayList<>();
+    for (Collection<String> part : parts) {
+      LayoutGraph subgraph = new LayoutGraph();
+      for (String node : part) {
+        subgraphOf.put(node, subgraph);
+      }
+      subgraphs.add(subgraph);
+    }
+    for (String node : nodes) {
+      LayoutGraph subgraph = subgraphOf.get(node);
+      if (subgraph != null) {
+        subgraph.nodes.add(node);
+      }
+    }
+    for (Map.Entry<String, List<String>> entry : hostedOn.entrySet()) {
+      copyEdges(entry, subgraphOf, subgraph -> subgraph.hostedOn);
+    }
+    for (Map.Entry<String, List<String>> entry : connectsTo.entrySet()) {
+      copyEdges(entry, subgraphOf, subgraph -> subgraph.connectsTo);
+    }
+    for (String node : rankSame) {
+      LayoutGraph subgraph = subgraphOf.get(node);
+      if (subgraph != null) {
+        subgraph.rankSame.add(node);
+      }
+    }
+    return subgraphs;
+  }
+
+  private static void copyEdges(
+      Map.Entry<String, List<String>> entry,
+      Map<String, LayoutGraph> subgraphOf,
+      Function<LayoutGraph, Map<String, List<String>>> edges) {
+    LayoutGraph subgraph = subgraphOf.get(entry.getKey());
+    if (subgraph == null) {
+      return;
+    }
+    for (String target : entry.getValue()) {
+      if (subgraphOf.get(target) == subgraph) {
+        edges.apply(subgraph).computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(target);
+      }
+    }
+  }
+
+  private static void union(Map<String, String> parents, Map<String, List<String>> edges) {
+    for (Map.Entry<String, List<String>> entry : edges.entrySet()) {
+      for (String target : entry.getValue()) {
+        if (parents.containsKey(entry.getKey()) && parents.containsKey(target)) {
+          parents.put(find(parents, entry.getKey()), find(parents, target));
+        }
+      }
+    }
+  }
+
+  private static String find(Map<String, String> parents, String node) {
+    String root = node;
+    while (!parents.get(root).equals(root)) {
+      root = parents.get(root);
+    }
+    while (!parents.get(node).equals(root)) {
+      String parent = parents.get(node);
+      parents.put(node, root);
+      node = parent;
+    }
+    return root;
+  }
+
+  /**
+   * The names of all nodes in the order of the components in the TADM.
+   *
+   * @return The node names.
+   */
+  public List<String> getNodes() {
+    return this.nodes;
+  }
+
+  /**
+   * The targets of the HostedOn relations, grouped by their source.
+   *
+   * @return The HostedOn edges.
+   */
+  public Map<String, List<String>> getHostedOn() {
+    return this.hostedOn;
+  }
+
+  /**
+   * The targets of the ConnectsTo relations, grouped by their source.
+   *
+   * @return The ConnectsTo edges.
+   */
+  public Map<String, List<String>> getConnectsTo() {
+    return this.connectsTo;
+  }
+
+  /**
+   * The nodes that are placed on the same rank if the graph is partially flattened.
+   *
+   * @return The nodes on the same rank.
+   */
+  public List<String> getRankSame() {
+    return this.rankSame;
+  }
+}
@@ -0,0 +1,154 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.List;
+import java.util.Objects;
+
+/** The immutable layout options of a single task. */
+public final class LayoutOptions {
+
+  private final double dpi;
+
+  private final String flatten;
+
+  private final int width;
+
+  private final int height;
+
+  private final String engine;
+
+  public LayoutOptions(double dpi, String flatten, int width, int height, String engine) {
+    this.dpi = dpi;
+    this.flatten = flatten;
+    this.width = width;
+    this.height = height;
+    this.engine = engine;
+  }
+
+  /**
+   * Creates the layout options from the options of an AnalysisTaskStartRequest. Options that are
+   * not given keep their default value.
+   *
+   * @param options The options of the task, e.g. "dpi=96" or "flatten=partial".
+   * @return The layout options.
+   */
+  public static LayoutOptions fromTaskOptions(List<String> options) {
+    double dpi = 96.0;
+    String flatten = "false";
+    int width = 1920;
+    int height = 1080;
+    String engine = "dot";
+
+    for (String option : options) {
+      if (option.contains("dpi")) {
+        dpi = Double.parseDouble(option.split("dpi=")[1]);
+      } else if (option.contains("flatten")) {
+        flatten = option.split("flatten=")[1];
+      } else if (option.contains("width")) {
+        width = Integer.parseInt(option.split("width=")[1]);
+      } else if (option.contains("height")) {
+        height = Integer.parseInt(option.split("height=")[1]);
+      } else if (option.contains("engine")) {
+        engine = option.split("engine=")[1];
+      }
+    }
+    return new LayoutOptions(dpi, flatten, width, height, engine);
+  }
+
+  public double getDpi() {
+    return this.dpi;
+  }
+
+  public String getFlatten() {
+    return this.flatten;
+  }
+
+  public int getWidth() {
+    return this.width;
+  }
+
+  public int getHeight() {
+    return this.height;
+  }
+
+  public String getEngine() {
+    return this.engine;
+  }
+
+  /**
+   * The maximum size of the graph in inches.
+   *
+   * @return The width and height of the graph.
+   */
+  public double[] getGraphSize() {
+    return new double[] {convertPixelsToInches(width * 0.82), convertPixelsToInches(height * 0.79)};
+  }
+
+  /**
+   * The size of a node in inches.
+   *
+   * @return The width and height of a node.
+   */
+  public double[] getNodeSize() {
+    return new double[] {convertPixelsToInches(225), convertPixelsToInches(60)};
+  }
+
+  /**
+   * Converts inches to pixels.
+   *
+   * @param inches the inches
+   * @return the pixels
+   */
+  public int convertInchesToPixels(double inches) {
+    return (int) Math.round(inches * dpi);
+  }
+
+  /**
+   * Converts pixels to inches.
+   *
+   * @param pixels the pixels
+   * @return the inches
+   */
+  public double convertPixelsToInches(double pixels) {
+    return (double) Math.round((pixels / dpi) * 100) / 100;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof LayoutOptions)) {
+      return false;
+    }
+    LayoutOptions layoutOptions = (LayoutOptions) o;
+    return dpi == layoutOptions.dpi
+        && Objects.equals(flatten, layoutOptions.flatten)
+        && width == layoutOptions.width
+        && height == layoutOptions.height
+        && Objects.equals(engine, layoutOptions.engine);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(dpi, flatten, width, height, engine);
+  }
+
+  @Override
+  public String toString() {
+    return "{"
+        + " dpi='"
+        + getDpi()
+        + "'"
+        + ", flatten='"
+        + getFlatten()
+        + "'"
+        + ", width='"
+        + getWidth()
+        + "'"
+        + ", height='"
+        + getHeight()
+        + "'"
+        + ", engine='"
+        + getEngine()
+        + "'"
+        + "}";
+  }
+}
@@ -0,0 +1,127 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.Objects;
+
+/**
+ * The immutable strategy used to lay out a graph. It determines the layout engine and, for
+ * GraphVIZ, the spline mode, the rank separation and whether the drawing is compressed to the size
+ * of the graph.
+ */
+public final class LayoutStrategy {
+
+  /** The strategy of the layered layout engine, which does not route the edges. */
+  public static final LayoutStrategy LAYERED =
+      new LayoutStrategy("layered", "layered", null, 0, false, null);
+
+  /** The strategy of the force-directed layout engine, which does not route the edges. */
+  public static final LayoutStrategy FORCE =
+      new LayoutStrategy("force", "force", null, 0, false, null);
+
+  /** The strategy of the incremental layout, which keeps the positions of a previous task. */
+  public static final LayoutStrategy INCREMENTAL =
+      new LayoutStrategy("incremental", "incremental", null, 0, false, null);
+
+  private final String name;
+
+  private final String engine;
+
+  private final String splines;
+
+  private final double ranksep;
+
+  private final boolean compress;
+
+  private final String fallbackFrom;
+
+  public LayoutStrategy(
+      String name, String engine, String splines, double ranksep, boolean compress) {
+    this(name, engine, splines, ranksep, compress, null);
+  }
+
+  private LayoutStrategy(
+      String name,
+      String engine,
+      String splines,
+      double ranksep,
+      boolean compress,
+      String fallbackFrom) {
+    this.name = name;
+    this.engine = engine;
+    this.splines = splines;
+    this.ranksep = ranksep;
+    this.compress = compress;
+    this.fallbackFrom = fallbackFrom;
+  }
+
+  /**
+   * Creates the strategy used if the layout with this strategy did not finish before the deadline
+   * of the task. The layered layout engine is used, as it runs in linear time in the size of the
+   * graph.
+   *
+   * @return The fallback strategy.
+   */
+  public LayoutStrategy fallback() {
+    return new LayoutStrategy(
+        LAYERED.name, LAYERED.engine, LAYERED.splines, LAYERED.ranksep, LAYERED.compress, name);
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getEngine() {
+    return this.engine;
+  }
+
+  public String getSplines() {
+    return this.splines;
+  }
+
+  public double getRanksep() {
+    return this.ranksep;
+  }
+
+  public boolean isCompress() {
+    return this.compress;
+  }
+
+  /**
+   * The name of the strategy this strategy replaced after the deadline passed.
+   *
+   * @return The name of the replaced strategy, or null if this strategy was selected directly.
+   */
+  public String getFallbackFrom() {
+    return this.fallbackFrom;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof LayoutStrategy)) {
+      return false;
+    }
+    LayoutStrategy layoutStrategy = (LayoutStrategy) o;
+    return Objects.equals(name, layoutStrategy.name)
+        && Objects.equals(engine, layoutStrategy.engine)
+        && Objects.equals(splines, layoutStrategy.splines)
+        && ranksep == layoutStrategy.ranksep
+        && compress == layoutStrategy.compress
+        && Objects.equals(fallbackFrom, layoutStrategy.fallbackFrom);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, engine, splines, ranksep, compress, fallbackFrom);
+  }
+
+  /**
+   * The description of the strategy as recorded in the response of the task, e.g. "ortho" or
+   * "layered (fallback from ortho)".
+   *
+   * @return The description of the strategy.
+   */
+  @Override
+  public String toString() {
+    return fallbackFrom == null ? name : name + " (fallback from " + fallbackFrom + ")";
+  }
+}
@@ -0,0 +1,82 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Selects the layout strategy of a task from the size of its layout graph. Orthogonal edge routing
+ * and compression are only used for small graphs, as their running time grows super-linearly.
+ * Larger graphs are laid out with polyline or straight edges and a smaller rank separation, and
+ * graphs beyond the limit of GraphVIZ with the layered layout engine.
+ */
+@Component
+public class LayoutStrategySelector {
+
+  private static final LayoutStrategy ORTHO =
+      new LayoutStrategy("ortho", "dot", "ortho", 0.5, true);
+
+  private static final LayoutStrategy POLYLINE =
+      new LayoutStrategy("polyline", "dot", "polyline", 0.4, false);
+
+  private static final LayoutStrategy LINE = new LayoutStrategy("line", "dot", "line", 0.3, false);
+
+  private final int orthoMaxNodes;
+  private final int orthoMaxEdges;
+  private final int polylineMaxNodes;
+  private final int polylineMaxEdges;
+  private final int dotMaxNodes;
+  private final int dotMaxEdges;
+
+  public LayoutStrategySelector(
+      @Value("${layout.strategy.ortho.max-nodes:150}") int orthoMaxNodes,
+      @Value("${layout.strategy.ortho.max-edges:300}") int orthoMaxEdges,
+      @Value("${layout.strategy.polyline.max-nodes:1000}") int polylineMaxNodes,
+      @Value("${layout.strategy.polyline.max-edges:2000}") int polylineMaxEdges,
+      @Value("${layout.strategy.dot.max-nodes:5000}") int dotMaxNodes,
+      @Value("${layout.strategy.dot.max-edges:10000}") int dotMaxEdges) {
+    this.orthoMaxNodes = orthoMaxNodes;
+    this.orthoMaxEdges = orthoMaxEdges;
+    this.polylineMaxNodes = polylineMaxNodes;
+    this.polylineMaxEdges = polylineMaxEdges;
+    this.dotMaxNodes = dotMaxNodes;
+    this.dotMaxEdges = dotMaxEdges;
+  }
+
+  /**
+   * Selects the layout strategy for a graph. If the layered or the force-directed layout engine is
+   * requested in the options, it is always used.
+   *
+   * @param graph The layout graph.
+   * @param options The layout options of the task.
+   * @return The layout strategy.
+   */
+  public LayoutStrategy select(LayoutGraph graph, LayoutOptions options) {
+    if (options.getEngine().equals("layered")) {
+      return LayoutStrategy.LAYERED;
+    } else if (options.getEngine().equals("force")) {
+      return LayoutStrategy.FORCE;
+    }
+    int nodes = graph.getNodes().size();
+    int edges = countEdges(graph);
+    if (nodes <= orthoMaxNodes && edges <= orthoMaxEdges) {
+      return ORTHO;
+    } else if (nodes <= polylineMaxNodes && edges <= polylineMaxEdges) {
+      return POLYLINE;
+    } else if (nodes <= dotMaxNodes && edges <= dotMaxEdges) {
+      return LINE;
+    }
+    return LayoutStrategy.LAYERED;
+  }
+
+  private static int countEdges(LayoutGraph graph) {
+    int edges = 0;
+    for (List<String> targets : graph.getHostedOn().values()) {
+      edges += targets.size();
+    }
+    for (List<String> targets : graph.getConnectsTo().values()) {
+      edges += targets.size();
+    }
+    return edges;
+  }
+}
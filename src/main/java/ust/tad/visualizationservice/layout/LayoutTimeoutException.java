@@ -0,0 +1,8 @@
+package ust.tad.visualizationservice.layout;
+
+/** Thrown if a layout engine did not finish before the layout deadline of the task. */
+public class LayoutTimeoutException extends RuntimeException {
+  public LayoutTimeoutException(String errorMessage) {
+    super(errorMessage);
+  }
+}
@@ -0,0 +1,63 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The layout computed by GraphVIZ as read from its plain output format. All coordinates are in
+ * inches with the origin in the lower left corner.
+ */
+public class PlainLayout {
+
+  private double scale = 1;
+
+  private double width;
+
+  private double height;
+
+  private final Map<String, double[]> nodes = new HashMap<>();
+
+  private final Map<String, Map<String, double[]>> edges = new HashMap<>();
+
+  public double getScale() {
+    return this.scale;
+  }
+
+  public void setScale(double scale) {
+    this.scale = scale;
+  }
+
+  public double getWidth() {
+    return this.width;
+  }
+
+  public void setWidth(double width) {
+    this.width = width;
+  }
+
+  public double getHeight() {
+    return this.height;
+  }
+
+  public void setHeight(double height) {
+    this.height = height;
+  }
+
+  /**
+   * The centers of the nodes.
+   *
+   * @return The x and y coordinates by the name of the node.
+   */
+  public Map<String, double[]> getNodes() {
+    return this.nodes;
+  }
+
+  /**
+   * The control points of the edge splines, grouped by the tail of the edge.
+   *
+   * @return The control points as x1, y1, x2, y2, ... by the name of the tail and the head.
+   */
+  public Map<String, Map<String, double[]>> getEdges() {
+    return this.edges;
+  }
+}
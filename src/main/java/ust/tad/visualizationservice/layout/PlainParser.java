@@ -0,0 +1,260 @@
+package ust.tad.visualizationservice.layout;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Parser for the plain output format of GraphVIZ ("dot -Tplain"). The output is read in one pass
+ * through a char buffer and split into tokens, where quoted identifiers may contain spaces and
+ * escaped quotes and backslashes. The graph, node and edge records are parsed, all other fields are
+ * skipped. If several graphs were laid out by one dot process, their layouts follow each other in
+ * the order of the input, each one ending with a "stop" record.
+ *
+ * <pre>
+ * graph scale width height
+ * node name x y width height label style shape color fillcolor
+ * edge tail head n x1 y1 .. xn yn [label xl yl] style color
+ * stop
+ * </pre>
+ */
+public final class PlainParser {
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+  };
+
+  private final Reader reader;
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private int line = 1;
+
+  private final StringBuilder token = new StringBuilder();
+
+  private PlainParser(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Parses the plain output of GraphVIZ until the "stop" record or the end of the input.
+   *
+   * @param reader The reader for the plain output.
+   * @return The layout.
+   * @throws IOException if the output could not be read or is malformed.
+   */
+  public static PlainLayout parse(Reader reader) throws IOException {
+    return new PlainParser(reader).parse();
+  }
+
+  /**
+   * Parses the plain output of GraphVIZ for several graphs, which were written to one dot process.
+   *
+   * @param reader The reader for the plain output.
+   * @param count The number of graphs.
+   * @return The layouts in the order of the graphs in the input.
+   * @throws IOException if the output could not be read, is malformed or contains fewer layouts.
+   */
+  public static List<PlainLayout> parse(Reader reader, int count) throws IOException {
+    PlainParser parser = new PlainParser(reader);
+    List<PlainLayout> layouts = new ArrayList<>(count);
+    while (layouts.size() < count) {
+      if (parser.peekEnd()) {
+        throw new IOException(
+            "Expected the layouts of " + count + " graphs but found " + layouts.size());
+      }
+      layouts.add(parser.parse());
+    }
+    return layouts;
+  }
+
+  private PlainLayout parse() throws IOException {
+    PlainLayout layout = new PlainLayout();
+    while (nextToken(true)) {
+      if (tokenIs("graph")) {
+        layout.setScale(nextDouble());
+        layout.setWidth(nextDouble());
+        layout.setHeight(nextDouble());
+      } else if (tokenIs("node")) {
+        String name = nextString();
+        double x = nextDouble();
+        double y = nextDouble();
+        layout.getNodes().put(name, new double[] {x, y});
+      } else if (tokenIs("edge")) {
+        String tail = nextString();
+        String head = nextString();
+        int n = (int) nextDouble();
+        double[] points = new double[2 * n];
+        for (int i = 0; i < points.length; i++) {
+          points[i] = nextDouble();
+        }
+        layout.getEdges().computeIfAbsent(tail, key -> new HashMap<>()).put(head, points);
+      } else if (tokenIs("stop")) {
+        break;
+      }
+      skipLine();
+    }
+    return layout;
+  }
+
+  /*
+   * Reads the next token of the current record as string.
+   */
+  private String nextString() throws IOException {
+    if (!nextToken(false)) {
+      throw new IOException("Unexpected end of record in line " + line);
+    }
+    return token.toString();
+  }
+
+  /*
+   * Reads the next token of the current record as number. Plain decimal numbers are converted
+   * without creating a string.
+   */
+  private double nextDouble() throws IOException {
+    if (!nextToken(false)) {
+      throw new IOException("Unexpected end of record in line " + line);
+    }
+    int length = token.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0 && (token.charAt(0) == '-' || token.charAt(0) == '+')) {
+      negative = token.charAt(0) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; i < length; i++) {
+      char c = token.charAt(i);
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+      } else if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else {
+        break;
+      }
+    }
+    if (i < length || digits == 0 || digits >= POWERS_OF_TEN.length) {
+      try {
+        return Double.parseDouble(token.toString());
+      } catch (NumberFormatException e) {
+        throw new IOException("Invalid number '" + token + "' in line " + line, e);
+      }
+    }
+    double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+    return negative ? -value : value;
+  }
+
+  /*
+   * Skips the whitespace up to the next token and checks whether the end of the input is reached.
+   */
+  private boolean peekEnd() throws IOException {
+    int c;
+    while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+      if (c == '\n') {
+        line++;
+      }
+      position++;
+    }
+    return c == -1;
+  }
+
+  private boolean tokenIs(String keyword) {
+    return token.length() == keyword.length() && keyword.contentEquals(token);
+  }
+
+  /*
+   * Reads the next token into the token buffer.
+   * @param nextRecord whether the token may be in a following line
+   * @return false if there is no further token in the record or the input
+   */
+  private boolean nextToken(boolean nextRecord) throws IOException {
+    token.setLength(0);
+    int c;
+    while (true) {
+      c = peek();
+      if (c == -1) {
+        return false;
+      } else if (c == '\n') {
+        if (!nextRecord) {
+          return false;
+        }
+        line++;
+      } else if (c != ' ' && c != '\t' && c != '\r') {
+        break;
+      }
+      position++;
+    }
+
+    if (c == '"') {
+      position++;
+      while (true) {
+        c = read();
+        if (c == -1) {
+          throw new IOException("Unterminated string in line " + line);
+        } else if (c == '"') {
+          break;
+        } else if (c == '\\') {
+          int next = peek();
+          if (next == '"' || next == '\\') {
+            position++;
+            token.append((char) next);
+          } else if (next == '\n') {
+            position++;
+            line++;
+          } else {
+            token.append('\\');
+          }
+        } else {
+          if (c == '\n') {
+            line++;
+          }
+          token.append((char) c);
+        }
+      }
+    } else {
+      while (c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+        token.append((char) c);
+        position++;
+        c = peek();
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Skips the remaining tokens of the current record. Quoted strings may contain line breaks.
+   */
+  private void skipLine() throws IOException {
+    while (nextToken(false)) {
+      // skip the token
+    }
+  }
+
+  private int peek() throws IOException {
+    if (position == limit) {
+      limit = reader.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position];
+  }
+
+  private int read() throws IOException {
+    int c = peek();
+    if (c != -1) {
+      position++;
+    }
+    return c;
+  }
+}
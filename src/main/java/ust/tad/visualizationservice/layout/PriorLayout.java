@@ -0,0 +1,76 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The layout of a previous task of a transformation process, as read from its service template.
+ * Besides the positions and edge routes it contains the neighbours of each node, so that the nodes
+ * whose relations changed since the previous task can be detected, and the fingerprint of the
+ * layout options the previous layout was computed with.
+ */
+public class PriorLayout {
+
+  private final Map<String, int[]> positions = new HashMap<>();
+
+  private final Map<String, Map<String, int[]>> routes = new HashMap<>();
+
+  private final Map<String, Set<String>> neighbours = new HashMap<>();
+
+  private String optionsFingerprint;
+
+  /**
+   * The positions of the nodes.
+   *
+   * @return The x and y pixel coordinates by the name of the node.
+   */
+  public Map<String, int[]> getPositions() {
+    return this.positions;
+  }
+
+  /**
+   * The routes of the edges, grouped by the source of the edge.
+   *
+   * @return The routes by the name of the source and the name of the target.
+   */
+  public Map<String, Map<String, int[]>> getRoutes() {
+    return this.routes;
+  }
+
+  /**
+   * The neighbours of the nodes, each one described by the relation type, the direction and the
+   * name of the neighbour, e.g. "host>ubuntu" or "connect<app".
+   *
+   * @return The neighbours by the name of the node.
+   */
+  public Map<String, Set<String>> getNeighbours() {
+    return this.neighbours;
+  }
+
+  /**
+   * The fingerprint of the layout options of the previous layout.
+   *
+   * @return The fingerprint, or null if the service template does not contain it.
+   */
+  public String getOptionsFingerprint() {
+    return this.optionsFingerprint;
+  }
+
+  public void setOptionsFingerprint(String optionsFingerprint) {
+    this.optionsFingerprint = optionsFingerprint;
+  }
+
+  /**
+   * Adds an edge to the neighbours of its source and target.
+   *
+   * @param type The type of the edge, "host" or "connect".
+   * @param source The name of the source node.
+   * @param target The name of the target node.
+   */
+  public void addEdge(String type, String source, String target) {
+    neighbours.computeIfAbsent(source, key -> new HashSet<>()).add(type + ">" + target);
+    neighbours.computeIfAbsent(target, key -> new HashSet<>()).add(type + "<" + source);
+  }
+}
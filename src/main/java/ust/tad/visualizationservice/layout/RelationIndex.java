@@ -0,0 +1,62 @@
+package ust.tad.visualizationservice.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ust.tad.visualizationservice.models.tadm.Relation;
+
+/**
+ * Index of the relations of a TADM by the name of their source component. It is built once per task
+ * and shared by the creation of the layout graph and the service template, so that the outgoing
+ * relations of a component are found without scanning all relations.
+ */
+public class RelationIndex {
+
+  private final List<Relation> relations;
+
+  private final Map<String, List<Relation>> outgoing = new HashMap<>();
+
+  private RelationIndex(List<Relation> relations) {
+    this.relations = relations;
+  }
+
+  /**
+   * Creates the index for the relations of a TADM.
+   *
+   * @param relations The relations in the TADM.
+   * @return The relation index.
+   */
+  public static RelationIndex fromModel(List<Relation> relations) {
+    RelationIndex relationIndex = new RelationIndex(relations);
+    for (Relation relation : relations) {
+      if (relation.getSource() != null) {
+        relationIndex
+            .outgoing
+            .computeIfAbsent(relation.getSource().getName(), key -> new ArrayList<>())
+            .add(relation);
+      }
+    }
+    return relationIndex;
+  }
+
+  /**
+   * All relations in the order of the TADM.
+   *
+   * @return The relations.
+   */
+  public List<Relation> getRelations() {
+    return this.relations;
+  }
+
+  /**
+   * The relations whose source component has the given name, in the order of the TADM.
+   *
+   * @param source The name of the source component.
+   * @return The outgoing relations, or an empty list if there are none.
+   */
+  public List<Relation> getOutgoing(String source) {
+    return this.outgoing.getOrDefault(source, Collections.emptyList());
+  }
+}
@@ -0,0 +1,85 @@
+package ust.tad.visualizationservice.metrics;
+
+/**
+ * The durations and resource usage of one dot process. The CPU time and the peak resident set size
+ * are sampled while the process runs, they are -1 if the process exited before it was sampled or
+ * the platform does not provide them. The layout time is the time spent waiting for the output of
+ * dot, the parse time excludes it.
+ */
+public final class DotProcessUsage {
+
+  private final long writeNanos;
+
+  private final long layoutNanos;
+
+  private final long parseNanos;
+
+  private final long executionNanos;
+
+  private final long cpuNanos;
+
+  private final long peakRssBytes;
+
+  public DotProcessUsage(
+      long writeNanos,
+      long layoutNanos,
+      long parseNanos,
+      long executionNanos,
+      long cpuNanos,
+      long peakRssBytes) {
+    this.writeNanos = writeNanos;
+    this.layoutNanos = layoutNanos;
+    this.parseNanos = parseNanos;
+    this.executionNanos = executionNanos;
+    this.cpuNanos = cpuNanos;
+    this.peakRssBytes = peakRssBytes;
+  }
+
+  public long getWriteNanos() {
+    return this.writeNanos;
+  }
+
+  public long getLayoutNanos() {
+    return this.layoutNanos;
+  }
+
+  public long getParseNanos() {
+    return this.parseNanos;
+  }
+
+  public long getExecutionNanos() {
+    return this.executionNanos;
+  }
+
+  public long getCpuNanos() {
+    return this.cpuNanos;
+  }
+
+  public long getPeakRssBytes() {
+    return this.peakRssBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "{"
+        + " writeNanos='"
+        + getWriteNanos()
+        + "'"
+        + ", layoutNanos='"
+        + getLayoutNanos()
+        + "'"
+        + ", parseNanos='"
+        + getParseNanos()
+        + "'"
+        + ", executionNanos='"
+        + getExecutionNanos()
+        + "'"
+        + ", cpuNanos='"
+        + getCpuNanos()
+        + "'"
+        + ", peakRssBytes='"
+        + getPeakRssBytes()
+        + "'"
+        + "}";
+  }
+}
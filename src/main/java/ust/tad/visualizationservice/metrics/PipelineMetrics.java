@@ -0,0 +1,154 @@
+package ust.tad.visualizationservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the stages of the pipeline from the locations of a task to the TOSCA artifacts. The
+ * duration of each stage is recorded by the timer "visualization.stage" with the stage as tag, the
+ * histogram and the percentiles of the timer are configured with the
+ * management.metrics.distribution properties. The gauges report the tasks in flight and the size of
+ * the most recent model.
+ */
+@Component
+public class PipelineMetrics {
+
+  /** The stages of the pipeline, the name is the value of the stage tag. */
+  public enum Stage {
+    /** Opening the connection of a location until the response headers are received. */
+    FETCH("fetch"),
+    /** Reading and parsing the EDMM YAML of a location. */
+    PARSE("parse"),
+    /** Merging the parsed locations and resolving the references of the TADM. */
+    BUILD("build"),
+    /** Computing the layout, including the cache lookup and the incremental update. */
+    LAYOUT("layout"),
+    /** Writing the DOT text to the stdin of a dot process. */
+    DOT_WRITE("dot-write"),
+    /** Running a dot process, from its start until it exited. */
+    DOT_EXECUTION("dot-execution"),
+    /** Waiting for the plain output of a dot process, i.e. the layout computed by dot. */
+    DOT_LAYOUT("dot-layout"),
+    /** Parsing the plain output of a dot process, without waiting for it. */
+    PLAIN_PARSE("plain-parse"),
+    /** Rendering the node types of the component types. */
+    NODE_TYPES("node-types"),
+    /** Rendering the service template. */
+    SERVICE_TEMPLATE("service-template"),
+    /** Writing the artifacts of a task to the artifact sink. */
+    ARTIFACT_WRITE("artifact-write");
+
+    private final String name;
+
+    Stage(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return this.name;
+    }
+  }
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+  private final AtomicInteger inFlightTasks = new AtomicInteger();
+  private final AtomicLong modelComponents = new AtomicLong();
+  private final AtomicLong modelRelations = new AtomicLong();
+
+  private final Counter artifactBytes;
+
+  public PipelineMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    for (Stage stage : Stage.values()) {
+      timers.put(
+          stage,
+          Timer.builder("visualization.stage")
+              .description("Duration of a stage of the pipeline")
+              .tag("stage", stage.toString())
+              .register(meterRegistry));
+    }
+    Gauge.builder("visualization.tasks.in.flight", inFlightTasks, AtomicInteger::get)
+        .description("Number of tasks that were received and not yet answered")
+        .register(meterRegistry);
+    Gauge.builder("visualization.model.components", modelComponents, AtomicLong::get)
+        .description("Number of components of the most recent model")
+        .register(meterRegistry);
+    Gauge.builder("visualization.model.relations", modelRelations, AtomicLong::get)
+        .description("Number of relations of the most recent model")
+        .register(meterRegistry);
+    artifactBytes =
+        Counter.builder("visualization.artifacts.written")
+            .description("Number of bytes of the artifacts written to the artifact sink")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Starts measuring the duration of a stage.
+   *
+   * @return The sample to stop at the end of the stage.
+   */
+  public Timer.Sample start() {
+    return Timer.start(meterRegistry);
+  }
+
+  /**
+   * Records the duration of a stage since the start of the sample.
+   *
+   * @param sample The sample started at the beginning of the stage.
+   * @param stage The stage.
+   * @return The duration in nanoseconds.
+   */
+  public long stop(Timer.Sample sample, Stage stage) {
+    return sample.stop(timers.get(stage));
+  }
+
+  /**
+   * Records the duration of a stage since the start of the sample, also for the response of a task.
+   *
+   * @param sample The sample started at the beginning of the stage.
+   * @param stage The stage.
+   * @param task The metrics of the task.
+   */
+  public void stop(Timer.Sample sample, Stage stage, TaskMetrics task) {
+    task.add(stage, stop(sample, stage));
+  }
+
+  /**
+   * Records the duration of a stage that was measured with System.nanoTime().
+   *
+   * @param stage The stage.
+   * @param nanos The duration in nanoseconds.
+   */
+  public void record(Stage stage, long nanos) {
+    timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void taskStarted() {
+    inFlightTasks.incrementAndGet();
+  }
+
+  public void taskFinished() {
+    inFlightTasks.decrementAndGet();
+  }
+
+  public void recordModel(int components, int relations) {
+    modelComponents.set(components);
+    modelRelations.set(relations);
+  }
+
+  public void recordArtifactBytes(long bytes) {
+    artifactBytes.increment(bytes);
+  }
+}
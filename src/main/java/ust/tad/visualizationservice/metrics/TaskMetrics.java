@@ -0,0 +1,111 @@
+package ust.tad.visualizationservice.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import ust.tad.visualizationservice.metrics.PipelineMetrics.Stage;
+
+/**
+ * Collects the metrics of a single task for its response. The stages of the locations and of the
+ * dot processes may run in parallel, so their durations are summed per stage and can exceed the
+ * wall time of the task. A dot process that laid out graphs of several tasks is counted for each of
+ * them.
+ */
+public class TaskMetrics {
+
+  private final long start = System.nanoTime();
+
+  private final Map<Stage, Long> stageNanos = new EnumMap<>(Stage.class);
+
+  private int dotProcesses;
+
+  private long dotCpuNanos = -1;
+
+  private long dotPeakRssBytes = -1;
+
+  private int components = -1;
+
+  private int relations = -1;
+
+  private boolean cacheHit;
+
+  private boolean incremental;
+
+  /**
+   * Adds the duration of a stage.
+   *
+   * @param stage The stage.
+   * @param nanos The duration in nanoseconds.
+   */
+  public synchronized void add(Stage stage, long nanos) {
+    stageNanos.merge(stage, nanos, Long::sum);
+  }
+
+  /**
+   * Adds the durations and resource usage of a dot process that laid out a graph of the task.
+   *
+   * @param usage The usage of the process.
+   */
+  public synchronized void addDotProcess(DotProcessUsage usage) {
+    dotProcesses++;
+    add(Stage.DOT_WRITE, usage.getWriteNanos());
+    add(Stage.DOT_LAYOUT, usage.getLayoutNanos());
+    add(Stage.PLAIN_PARSE, usage.getParseNanos());
+    add(Stage.DOT_EXECUTION, usage.getExecutionNanos());
+    if (usage.getCpuNanos() >= 0) {
+      dotCpuNanos = Math.max(dotCpuNanos, 0) + usage.getCpuNanos();
+    }
+    dotPeakRssBytes = Math.max(dotPeakRssBytes, usage.getPeakRssBytes());
+  }
+
+  public synchronized void setModelSize(int components, int relations) {
+    this.components = components;
+    this.relations = relations;
+  }
+
+  public synchronized void setCacheHit(boolean cacheHit) {
+    this.cacheHit = cacheHit;
+  }
+
+  public synchronized void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  /** Returns the wall time since the task was received in nanoseconds. */
+  public long getWallNanos() {
+    return System.nanoTime() - start;
+  }
+
+  public synchronized Map<Stage, Long> getStageNanos() {
+    return new EnumMap<>(stageNanos);
+  }
+
+  public synchronized int getDotProcesses() {
+    return this.dotProcesses;
+  }
+
+  /** Returns the summed CPU time of the dot processes, or -1 if none of them was sampled. */
+  public synchronized long getDotCpuNanos() {
+    return this.dotCpuNanos;
+  }
+
+  /** Returns the largest peak resident set size of the dot processes, or -1 if unknown. */
+  public synchronized long getDotPeakRssBytes() {
+    return this.dotPeakRssBytes;
+  }
+
+  public synchronized int getComponents() {
+    return this.components;
+  }
+
+  public synchronized int getRelations() {
+    return this.relations;
+  }
+
+  public synchronized boolean isCacheHit() {
+    return this.cacheHit;
+  }
+
+  public synchronized boolean isIncremental() {
+    return this.incremental;
+  }
+}
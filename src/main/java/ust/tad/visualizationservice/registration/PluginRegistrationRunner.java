@@ -19,6 +19,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -40,6 +41,8 @@ public class PluginRegistrationRunner implements ApplicationRunner {
 
   @Autowired private AnalysisTaskReceiver analysisTaskReceiver;
 
+  @Autowired private ThreadPoolTaskExecutor requestQueueTaskExecutor;
+
   @Value("${analysis-manager.plugin-registration.url}")
   private String pluginRegistrationURI;
 
@@ -52,6 +55,21 @@ public class PluginRegistrationRunner implements ApplicationRunner {
   @Value("${messaging.analysistask.response.exchange.name}")
   private String responseExchangeName;
 
+  @Value("${messaging.analysistask.request.concurrent-consumers}")
+  private int concurrentConsumers;
+
+  @Value("${messaging.analysistask.request.max-concurrent-consumers}")
+  private int maxConcurrentConsumers;
+
+  @Value("${messaging.analysistask.request.prefetch-count}")
+  private int prefetchCount;
+
+  @Value("${messaging.analysistask.request.consecutive-active-trigger}")
+  private int consecutiveActiveTrigger;
+
+  @Value("${messaging.analysistask.request.consecutive-idle-trigger}")
+  private int consecutiveIdleTrigger;
+
   /**
    * Register the plugin at the Analysis Manager.
    *
@@ -84,7 +102,7 @@ public class PluginRegistrationRunner implements ApplicationRunner {
             response.getRequestQueueName(), message -> analysisTaskReceiver.receive(message));
 
     context.registerBean(
-        "requestQueueListener", requestQueueListener.getClass(), requestQueueListener);
+        "requestQueueListener", AbstractMessageListenerContainer.class, () -> requestQueueListener);
 
     context.registerBean(
         responseExchangeName,
@@ -126,7 +144,10 @@ public class PluginRegistrationRunner implements ApplicationRunner {
   }
 
   /**
-   * Create a listener for the request queue.
+   * Create a listener for the request queue. The listener starts with the configured number of
+   * consumers and adds consumers up to the maximum while messages are waiting in the queue, i.e.
+   * while a consumer receives the configured number of messages in a row. Consumers that stay idle
+   * are stopped again.
    *
    * @param requestQueueName The name of the request queue.
    * @param messageListener The message listener.
@@ -138,6 +159,12 @@ public class PluginRegistrationRunner implements ApplicationRunner {
         new SimpleMessageListenerContainer(rabbitAdmin.getRabbitTemplate().getConnectionFactory());
     listener.addQueueNames(requestQueueName);
     listener.setMessageListener(messageListener);
+    listener.setTaskExecutor(requestQueueTaskExecutor);
+    listener.setConcurrentConsumers(concurrentConsumers);
+    listener.setMaxConcurrentConsumers(maxConcurrentConsumers);
+    listener.setPrefetchCount(prefetchCount);
+    listener.setConsecutiveActiveTrigger(consecutiveActiveTrigger);
+    listener.setConsecutiveIdleTrigger(consecutiveIdleTrigger);
     listener.start();
 
     return listener;
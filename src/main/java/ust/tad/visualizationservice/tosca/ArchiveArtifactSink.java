@@ -0,0 +1,115 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes all artifacts of a task into one CSAR archive, "csars/{id}.csar" in the repository,
+ * instead of creating a directory and a file per artifact. The entries have the same paths as the
+ * files written by the {@link FileSystemArtifactSink}, so the archive can optionally be extracted
+ * into the repository, writing only the changed files.
+ */
+@Component
+@ConditionalOnProperty(name = "repository.sink", havingValue = "archive")
+public class ArchiveArtifactSink implements ArtifactSink {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArchiveArtifactSink.class);
+
+  private final Path repository;
+
+  private final boolean extract;
+
+  public ArchiveArtifactSink(
+      @Value("${repository.path:/var/repository}") String repository,
+      @Value("${repository.archive.extract:false}") boolean extract) {
+    this.repository = Paths.get(repository);
+    this.extract = extract;
+  }
+
+  @Override
+  public void write(UUID transformationProcessId, Map<String, byte[]> artifacts)
+      throws IOException {
+    Path archive = repository.resolve("csars").resolve(transformationProcessId + ".csar");
+    Files.createDirectories(archive.getParent());
+    Path temporaryFile = ArtifactFiles.temporaryFile(archive);
+    try {
+      try (FileChannel channel =
+          FileChannel.open(
+              temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        ZipOutputStream zip =
+            new ZipOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        zip.putNextEntry(new ZipEntry("TOSCA-Metadata/TOSCA.meta"));
+        zip.write(createMetadata(artifacts).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+          zip.putNextEntry(new ZipEntry(artifact.getKey()));
+          zip.write(artifact.getValue());
+          zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        channel.force(true);
+      }
+      ArtifactFiles.replace(temporaryFile, archive);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+
+    if (extract) {
+      int written = ArtifactFiles.extractIfChanged(archive, repository);
+      LOG.info("Extracted {} changed files from {}", written, archive);
+    }
+  }
+
+  @Override
+  public byte[] read(UUID transformationProcessId, String path) throws IOException {
+    Path archive = repository.resolve("csars").resolve(transformationProcessId + ".csar");
+    if (!Files.exists(archive)) {
+      return null;
+    }
+    try (ZipFile zip = new ZipFile(archive.toFile())) {
+      ZipEntry entry = zip.getEntry(path);
+      if (entry == null) {
+        return null;
+      }
+      try (InputStream content = zip.getInputStream(entry)) {
+        return content.readAllBytes();
+      }
+    }
+  }
+
+  /*
+   * Creates the TOSCA metadata of the archive, the service template is the entry definition.
+   */
+  private String createMetadata(Map<String, byte[]> artifacts) {
+    StringBuilder metadata = new StringBuilder();
+    metadata.append("TOSCA-Meta-File-Version: 1.1\n");
+    metadata.append("CSAR-Version: 1.1\n");
+    metadata.append("Created-By: visualization-service\n");
+    for (String path : artifacts.keySet()) {
+      if (path.endsWith("/ServiceTemplate.tosca")) {
+        metadata.append("Entry-Definitions: ").append(path).append('\n');
+        break;
+      }
+    }
+    return metadata.toString();
+  }
+}
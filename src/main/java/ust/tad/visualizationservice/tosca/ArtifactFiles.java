@@ -0,0 +1,144 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/** Helper methods for writing generated artifacts to the file system. */
+public final class ArtifactFiles {
+
+  private ArtifactFiles() {}
+
+  /**
+   * Writes the content to the file, unless the file already has the same content. The content is
+   * written to a temporary file in the same directory first, which then replaces the file, so
+   * readers never see a partially written file. The temporary file is created with the default
+   * permissions, like the file itself would be.
+   *
+   * @param path The path of the file.
+   * @param content The content of the file.
+   * @return true if the file was written, false if it was unchanged.
+   * @throws IOException if the file could not be read or written.
+   */
+  public static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+    if (Files.isRegularFile(path)
+        && Files.size(path) == content.length
+        && MessageDigest.isEqual(sha256(Files.readAllBytes(path)), sha256(content))) {
+      return false;
+    }
+    writeAtomically(path, content);
+    return true;
+  }
+
+  /**
+   * Writes the content to a temporary file in the directory of the file and moves it to the file.
+   * The content is forced to the storage device before the file is replaced.
+   *
+   * @param path The path of the file.
+   * @param content The content of the file.
+   * @throws IOException if the file could not be written.
+   */
+  public static void writeAtomically(Path path, byte[] content) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    Path temporaryFile = temporaryFile(path);
+    try {
+      try (FileChannel channel =
+          FileChannel.open(
+              temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      replace(temporaryFile, path);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Returns a unique path for a temporary file in the directory of the file, which can replace the
+   * file once it has been written completely.
+   *
+   * @param path The path of the file.
+   * @return The path of the temporary file.
+   */
+  public static Path temporaryFile(Path path) {
+    return path.toAbsolutePath()
+        .getParent()
+        .resolve("." + path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+  }
+
+  /**
+   * Replaces the file with the temporary file, atomically if the file system supports it.
+   *
+   * @param temporaryFile The path of the temporary file.
+   * @param path The path of the file.
+   * @throws IOException if the file could not be replaced.
+   */
+  public static void replace(Path temporaryFile, Path path) throws IOException {
+    try {
+      Files.move(
+          temporaryFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Extracts the TOSCA artifacts of an archive into a directory. The files are only written if
+   * their content changed, the TOSCA-Metadata of the archive is not extracted.
+   *
+   * @param archive The path of the archive.
+   * @param directory The directory to extract the archive to.
+   * @return The number of files written.
+   * @throws IOException if the archive could not be read or a file could not be written.
+   */
+  public static int extractIfChanged(Path archive, Path directory) throws IOException {
+    Path root = directory.toAbsolutePath().normalize();
+    int written = 0;
+    try (ZipInputStream zip =
+        new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive)))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (entry.isDirectory() || entry.getName().startsWith("TOSCA-Metadata/")) {
+          continue;
+        }
+        Path path = root.resolve(entry.getName()).normalize();
+        if (!path.startsWith(root)) {
+          throw new IOException("Archive entry outside of the directory: " + entry.getName());
+        }
+        if (writeIfChanged(path, zip.readAllBytes())) {
+          written++;
+        }
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Computes the SHA-256 hash of the content.
+   *
+   * @param content The content.
+   * @return The hash.
+   */
+  public static byte[] sha256(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Destination of the TOSCA artifacts generated for a task. The implementation is selected with the
+ * property "repository.sink": "filesystem" writes each artifact to its own file in the repository,
+ * "archive" writes one CSAR archive per task and "memory" keeps the artifacts in memory.
+ */
+public interface ArtifactSink {
+
+  /**
+   * Stores the artifacts of a task. The method returns once the artifacts are durable, so that the
+   * task can be reported as successful.
+   *
+   * @param transformationProcessId The ID of the transformation process.
+   * @param artifacts The contents of the artifacts by their path relative to the repository, e.g.
+   *     "servicetemplates/ust.tad.servicetemplates/{id}/ServiceTemplate.tosca".
+   * @throws IOException if the artifacts could not be stored.
+   */
+  void write(UUID transformationProcessId, Map<String, byte[]> artifacts) throws IOException;
+
+  /**
+   * Reads an artifact stored by a previous task of the transformation process.
+   *
+   * @param transformationProcessId The ID of the transformation process.
+   * @param path The path of the artifact relative to the repository.
+   * @return The content of the artifact, or null if it is not stored.
+   * @throws IOException if the artifact could not be read.
+   */
+  byte[] read(UUID transformationProcessId, String path) throws IOException;
+}
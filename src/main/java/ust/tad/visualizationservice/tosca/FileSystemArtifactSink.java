@@ -0,0 +1,70 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes each artifact to its own file in the repository. The files are written in parallel and
+ * only if their content changed, each one atomically through a temporary file.
+ */
+@Component
+@ConditionalOnProperty(name = "repository.sink", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemArtifactSink implements ArtifactSink {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileSystemArtifactSink.class);
+
+  private final Path repository;
+
+  public FileSystemArtifactSink(@Value("${repository.path:/var/repository}") String repository) {
+    this.repository = Paths.get(repository);
+  }
+
+  @Override
+  public void write(UUID transformationProcessId, Map<String, byte[]> artifacts)
+      throws IOException {
+    long written;
+    try {
+      written =
+          artifacts.entrySet().parallelStream()
+              .filter(
+                  artifact -> {
+                    try {
+                      return ArtifactFiles.writeIfChanged(
+                          repository.resolve(artifact.getKey()), artifact.getValue());
+                    } catch (IOException e) {
+                      throw new RuntimeException(e);
+                    }
+                  })
+              .count();
+    } catch (RuntimeException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
+    }
+    LOG.info(
+        "Wrote {} of {} artifacts of {}, the others are unchanged",
+        written,
+        artifacts.size(),
+        transformationProcessId);
+  }
+
+  @Override
+  public byte[] read(UUID transformationProcessId, String path) throws IOException {
+    try {
+      return Files.readAllBytes(repository.resolve(path));
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+}
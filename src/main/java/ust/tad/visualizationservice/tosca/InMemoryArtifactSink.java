@@ -0,0 +1,61 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the artifacts of the last task of each transformation process in memory. It does not write
+ * anything to disk and is meant for measurements and local runs without a repository volume. The
+ * number of transformation processes is bounded, the least recently used one is evicted first.
+ */
+@Component
+@ConditionalOnProperty(name = "repository.sink", havingValue = "memory")
+public class InMemoryArtifactSink implements ArtifactSink {
+
+  private final Map<UUID, Map<String, byte[]>> artifacts;
+
+  public InMemoryArtifactSink(
+      @Value("${repository.memory.max-processes:1000}") int maxTransformationProcesses) {
+    this.artifacts =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<UUID, Map<String, byte[]>> eldest) {
+            return size() > maxTransformationProcesses;
+          }
+        };
+  }
+
+  @Override
+  public synchronized void write(UUID transformationProcessId, Map<String, byte[]> artifacts) {
+    this.artifacts.put(transformationProcessId, new LinkedHashMap<>(artifacts));
+  }
+
+  @Override
+  public synchronized byte[] read(UUID transformationProcessId, String path) {
+    Map<String, byte[]> stored = this.artifacts.get(transformationProcessId);
+    return stored == null ? null : stored.get(path);
+  }
+
+  /**
+   * The artifacts of a transformation process.
+   *
+   * @param transformationProcessId The ID of the transformation process.
+   * @return The contents of the artifacts by their path, or null if there are none.
+   */
+  public synchronized Map<String, byte[]> getArtifacts(UUID transformationProcessId) {
+    return this.artifacts.get(transformationProcessId);
+  }
+
+  /**
+   * Removes the artifacts of a transformation process.
+   *
+   * @param transformationProcessId The ID of the transformation process.
+   */
+  public synchronized void remove(UUID transformationProcessId) {
+    this.artifacts.remove(transformationProcessId);
+  }
+}
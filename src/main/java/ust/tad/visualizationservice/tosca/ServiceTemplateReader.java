@@ -0,0 +1,133 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ust.tad.visualizationservice.layout.PriorLayout;
+
+/**
+ * Reads the layout from a service template written by the {@link ToscaWriter}. As the layout of the
+ * service template is fixed, it is read line by line instead of parsing the YAML: the x and y
+ * metadata and the requirements of the node templates, and the route metadata of the relationship
+ * templates. The nodes are identified by their display name, the name of the component. The
+ * fingerprint of the layout options is read from the metadata of the service template.
+ */
+public final class ServiceTemplateReader {
+
+  private ServiceTemplateReader() {}
+
+  /**
+   * Reads the layout from a service template.
+   *
+   * @param reader The reader for the service template.
+   * @return The layout of the service template.
+   * @throws IOException if the service template could not be read or contains invalid coordinates.
+   */
+  public static PriorLayout read(Reader reader) throws IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    Map<String, String> displayNames = new HashMap<>();
+    Map<String, int[]> positions = new HashMap<>();
+    List<String[]> requirements = new ArrayList<>();
+    Map<String, int[]> routes = new HashMap<>();
+
+    String section = "";
+    String block = "";
+    String template = null;
+    int[] position = null;
+    String requirement = null;
+    String target = null;
+    String optionsFingerprint = null;
+    String line;
+    while ((line = lines.readLine()) != null) {
+      if (line.startsWith("  layoutOptionsFingerprint: ")) {
+        optionsFingerprint = line.substring(28);
+      } else if (line.startsWith("  ") && !line.startsWith("   ")) {
+        section = line.trim();
+      } else if (line.startsWith("    ") && !line.startsWith("     ")) {
+        template = line.substring(4, line.length() - 1);
+        position = new int[2];
+        block = "";
+      } else if (line.startsWith("      ") && !line.startsWith("       ")) {
+        block = line.trim();
+      } else if (template == null) {
+        continue;
+      } else if (section.equals("node_templates:") && block.equals("metadata:")) {
+        if (line.startsWith("        x: ")) {
+          position[0] = parseCoordinate(line.substring(11));
+        } else if (line.startsWith("        y: ")) {
+          position[1] = parseCoordinate(line.substring(11));
+        } else if (line.startsWith("        displayName: ")) {
+          String displayName = line.substring(21);
+          displayNames.put(template, displayName);
+          positions.put(displayName, position);
+        }
+      } else if (section.equals("node_templates:") && block.equals("requirements:")) {
+        if (line.startsWith("        - ")) {
+          requirement = line.substring(10, line.length() - 1);
+        } else if (line.startsWith("            node: ")) {
+          target = line.substring(18);
+        } else if (line.startsWith("            relationship: ")) {
+          requirements.add(new String[] {template, requirement, target, line.substring(26)});
+        }
+      } else if (section.startsWith("relationship_templates:") && block.equals("metadata:")) {
+        if (line.startsWith("        route: ")) {
+          routes.put(template, parseRoute(line.substring(15)));
+        }
+      }
+    }
+
+    PriorLayout layout = new PriorLayout();
+    layout.setOptionsFingerprint(optionsFingerprint);
+    layout.getPositions().putAll(positions);
+    for (String[] edge : requirements) {
+      String source = displayNames.get(edge[0]);
+      String targetName = displayNames.get(edge[2]);
+      if (source == null || targetName == null) {
+        continue;
+      }
+      layout.addEdge(edge[1], source, targetName);
+      int[] route = routes.get(edge[3]);
+      if (route != null) {
+        layout.getRoutes().computeIfAbsent(source, key -> new HashMap<>()).put(targetName, route);
+      }
+    }
+    return layout;
+  }
+
+  private static int parseCoordinate(String value) throws IOException {
+    try {
+      return Integer.parseInt(unquote(value));
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid coordinate " + value, e);
+    }
+  }
+
+  /*
+   * Parses a route of the form 'x1,y1 x2,y2 ...'.
+   */
+  private static int[] parseRoute(String value) throws IOException {
+    String[] points = unquote(value).split(" ");
+    int[] route = new int[points.length * 2];
+    try {
+      for (int i = 0; i < points.length; i++) {
+        int comma = points[i].indexOf(',');
+        route[2 * i] = Integer.parseInt(points[i].substring(0, comma));
+        route[2 * i + 1] = Integer.parseInt(points[i].substring(comma + 1));
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Invalid route " + value, e);
+    }
+    return route;
+  }
+
+  private static String unquote(String value) {
+    if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+}
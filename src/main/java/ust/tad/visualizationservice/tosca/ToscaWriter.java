@@ -0,0 +1,360 @@
+package ust.tad.visualizationservice.tosca;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ust.tad.visualizationservice.layout.Layout;
+import ust.tad.visualizationservice.layout.RelationIndex;
+import ust.tad.visualizationservice.models.tadm.Component;
+import ust.tad.visualizationservice.models.tadm.ComponentType;
+import ust.tad.visualizationservice.models.tadm.Property;
+import ust.tad.visualizationservice.models.tadm.Relation;
+
+/**
+ * Writes the TOSCA node types and service templates of a TADM. The YAML is written in a single pass
+ * to the given writer, which should be buffered, without building intermediate strings for each
+ * line.
+ */
+@org.springframework.stereotype.Component
+public class ToscaWriter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ToscaWriter.class);
+
+  private static final Pattern VARIABLE = Pattern.compile(".*\\$\\(.*\\).*");
+
+  private static final String NODE_TYPE_INTERFACES =
+      "    requirements:\n"
+          + "      - host:\n"
+          + "          capability: tosca.capabilities.Node\n"
+          + "          relationship: tosca.relationships.HostedOn\n"
+          + "          occurrences: [ 1, 1 ]\n"
+          + "    interfaces:\n"
+          + "      Standard:\n"
+          + "        type: tosca.interfaces.node.lifecycle.Standard\n"
+          + "        operations:\n"
+          + "          stop:\n"
+          + "            description: The standard stop operation\n"
+          + "          start:\n"
+          + "            description: The standard start operation\n"
+          + "          create:\n"
+          + "            description: The standard create operation\n"
+          + "          configure:\n"
+          + "            description: The standard configure operation\n"
+          + "          delete:\n"
+          + "            description: The standard delete operation\n";
+
+  /**
+   * Writes the node type of a component type.
+   *
+   * @param writer The writer to write the node type to.
+   * @param componentType The component type.
+   * @param id The ID of the transformation process.
+   * @throws IOException if the node type could not be written.
+   */
+  public void writeNodeType(Writer writer, ComponentType componentType, UUID id)
+      throws IOException {
+    String namespace = id + ".ust.tad.nodetypes";
+    writer.write("tosca_definitions_version: tosca_simple_yaml_1_3\n\n");
+    writer.write("node_types:\n");
+    writer.write("  ");
+    writer.write(namespace);
+    writer.write('.');
+    writer.write(String.valueOf(componentType.getName()));
+    writer.write(":\n");
+    writer.write("    derived_from: tosca.nodes.Root\n");
+    writer.write("    metadata:\n");
+    writer.write("      targetNamespace: ");
+    writer.write(namespace);
+    writer.write('\n');
+    writer.write("      abstract: \"false\"\n");
+    writer.write("      final: \"false\"\n");
+    writer.write("    properties:\n");
+    for (Property property : componentType.getProperties()) {
+      writer.write("      ");
+      writeKey(writer, property.getKey());
+      writer.write(":\n");
+      writer.write("        type: ");
+      writer.write(property.getType().name());
+      writer.write('\n');
+      writer.write("        required: ");
+      writer.write(String.valueOf(property.getRequired()));
+      writer.write('\n');
+      writer.write("        default: ");
+      writeValue(writer, property.getValue().toString());
+      writer.write('\n');
+    }
+    writer.write(NODE_TYPE_INTERFACES);
+  }
+
+  /**
+   * Writes the service template of the components and relations in a TADM.
+   *
+   * @param writer The writer to write the service template to.
+   * @param components The components in the TADM.
+   * @param relationIndex The index of the relations in the TADM.
+   * @param layout The pixel coordinates of the components and edge routes.
+   * @param optionsFingerprint The fingerprint of the layout options the layout was computed with.
+   * @param id The ID of the transformation process.
+   * @throws IOException if the service template could not be written.
+   */
+  public void writeServiceTemplate(
+      Writer writer,
+      List<Component> components,
+      RelationIndex relationIndex,
+      Layout layout,
+      String optionsFingerprint,
+      UUID id)
+      throws IOException {
+    Map<String, Node> nodes = createNodes(components, relationIndex, layout.getPositions());
+
+    writer.write("tosca_definitions_version: tosca_simple_yaml_1_3\n\n");
+    writer.write("metadata:\n");
+    writer.write("  targetNamespace: \"ust.tad.servicetemplates\"\n");
+    writer.write("  name: ");
+    writer.write(id.toString());
+    writer.write('\n');
+    writer.write("  layoutOptionsFingerprint: ");
+    writer.write(optionsFingerprint);
+    writer.write('\n');
+    writer.write("topology_template:\n");
+    writer.write("  node_templates:\n");
+    for (Node node : nodes.values()) {
+      writer.write("    ");
+      writer.write(node.name);
+      writer.write(":\n");
+      if (node.type == null) {
+        writer.write("      type: tosca.nodes.Root\n");
+      } else {
+        writer.write("      type: ");
+        writer.write(id.toString());
+        writer.write(".ust.tad.nodetypes.");
+        writer.write(node.type);
+        writer.write('\n');
+      }
+      writer.write("      metadata:\n");
+      writer.write("        x: '");
+      writer.write(Integer.toString(node.x));
+      writer.write("'\n");
+      writer.write("        y: '");
+      writer.write(Integer.toString(node.y));
+      writer.write("'\n");
+      writer.write("        displayName: ");
+      writer.write(String.valueOf(node.displayName));
+      writer.write('\n');
+      writer.write("      properties:\n");
+      for (Property property : node.properties) {
+        writer.write("        ");
+        writeKey(writer, property.getKey());
+        writer.write(": ");
+        writeValue(writer, property.getValue().toString());
+        writer.write('\n');
+      }
+      if (!node.requirements.isEmpty()) {
+        writer.write("      requirements:\n");
+        for (Relation relation : node.requirements) {
+          String type = relation.getType().getName();
+          if (type.equals("HostedOn")) {
+            writer.write("        - host:\n");
+          } else if (type.equals("ConnectsTo")) {
+            writer.write("        - connect:\n");
+          }
+          writer.write("            node: ");
+          writer.write(nodes.get(relation.getTarget().getName()).name);
+          writer.write('\n');
+          writer.write("            relationship: ");
+          writer.write(String.valueOf(relation.getName()));
+          writer.write('\n');
+          writer.write("            capability: feature\n");
+        }
+      }
+    }
+    writer.write("  relationship_templates: \n");
+    for (Relation relation : relationIndex.getRelations()) {
+      writer.write("    ");
+      writer.write(String.valueOf(relation.getName()));
+      writer.write(":\n");
+      writer.write("      type: tosca.relationships.");
+      writer.write(relation.getType().getName());
+      writer.write('\n');
+      int[] route = layout.getRoute(relation.getSource().getName(), relation.getTarget().getName());
+      if (route != null) {
+        writer.write("      metadata:\n");
+        writer.write("        route: '");
+        for (int i = 0; i + 1 < route.length; i += 2) {
+          if (i > 0) {
+            writer.write(' ');
+          }
+          writer.write(Integer.toString(route[i]));
+          writer.write(',');
+          writer.write(Integer.toString(route[i + 1]));
+        }
+        writer.write("'\n");
+      }
+    }
+  }
+
+  /*
+   * Creates the node templates of the components, keyed by the display name of the component.
+   * Components of the same type are numbered in the order of the TADM.
+   */
+  private Map<String, Node> createNodes(
+      List<Component> components, RelationIndex relationIndex, Map<String, int[]> layout) {
+    Map<String, Node> nodes = new HashMap<>();
+    Map<String, Integer> typeCount = new HashMap<>();
+
+    for (Component component : components) {
+      Node node = new Node();
+
+      try {
+        node.type = component.getType().getName();
+      } catch (Exception e) {
+        LOG.info("Component type of the component {} is not defined.", component.getName());
+      }
+
+      Integer count = typeCount.merge(node.type, 0, (previous, ignored) -> previous + 1);
+
+      node.displayName = component.getName();
+      node.name = component.getName() + "_" + count;
+      node.properties = component.getProperties();
+
+      int[] coords = layout.get(node.displayName);
+      node.x = coords[0];
+      node.y = coords[1];
+
+      node.requirements = relationIndex.getOutgoing(node.displayName);
+      nodes.put(node.displayName, node);
+    }
+    return nodes;
+  }
+
+  /*
+   * Writes a property key, numeric keys are quoted so they stay strings.
+   */
+  private void writeKey(Writer writer, String key) throws IOException {
+    if (isNumeric(key)) {
+      writer.write('"');
+      writer.write(key);
+      writer.write('"');
+    } else {
+      writer.write(String.valueOf(key));
+    }
+  }
+
+  /*
+   * Writes a property value, values containing a variable like $(name) are quoted.
+   */
+  private void writeValue(Writer writer, String value) throws IOException {
+    if (isVariable(value)) {
+      writer.write('"');
+      writer.write(value);
+      writer.write('"');
+    } else {
+      writer.write(value);
+    }
+  }
+
+  /**
+   * Checks if the given string contains a variable like $(name), so it has to be quoted.
+   *
+   * @param value the string
+   * @return true if the string contains a variable, false otherwise
+   */
+  public static boolean isVariable(String value) {
+    return value.indexOf("$(") >= 0 && VARIABLE.matcher(value).matches();
+  }
+
+  /**
+   * Checks if the given string is numeric, i.e. if it can be parsed by {@link
+   * Double#parseDouble(String)}. Plain decimal numbers and strings that cannot start a number are
+   * classified without parsing; only the remaining cases, e.g. hexadecimal numbers or strings with
+   * surrounding whitespace, are parsed.
+   *
+   * @param str the string
+   * @return true if the string is numeric, false otherwise
+   */
+  public static boolean isNumeric(String str) {
+    if (str == null || str.isEmpty()) {
+      return false;
+    }
+    char first = str.charAt(0);
+    if (first > ' '
+        && first != '+'
+        && first != '-'
+        && first != '.'
+        && first != 'N'
+        && first != 'I'
+        && (first < '0' || first > '9')) {
+      return false;
+    }
+    if (isDecimal(str)) {
+      return true;
+    }
+    try {
+      Double.parseDouble(str);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /*
+   * Checks if the string is a plain decimal number with an optional sign, fraction, exponent and
+   * float or double suffix.
+   */
+  private static boolean isDecimal(String str) {
+    int length = str.length();
+    int i = 0;
+    if (str.charAt(i) == '+' || str.charAt(i) == '-') {
+      i++;
+    }
+    int digits = 0;
+    while (i < length && str.charAt(i) >= '0' && str.charAt(i) <= '9') {
+      i++;
+      digits++;
+    }
+    if (i < length && str.charAt(i) == '.') {
+      i++;
+      while (i < length && str.charAt(i) >= '0' && str.charAt(i) <= '9') {
+        i++;
+        digits++;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < length && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+      i++;
+      if (i < length && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+        i++;
+      }
+      int exponentDigits = 0;
+      while (i < length && str.charAt(i) >= '0' && str.charAt(i) <= '9') {
+        i++;
+        exponentDigits++;
+      }
+      if (exponentDigits == 0) {
+        return false;
+      }
+    }
+    if (i < length && "fFdD".indexOf(str.charAt(i)) >= 0) {
+      i++;
+    }
+    return i == length;
+  }
+
+  private static class Node {
+    String name;
+    String type;
+    int x;
+    int y;
+    String displayName;
+    List<Property> properties;
+    List<Relation> requirements;
+  }
+}
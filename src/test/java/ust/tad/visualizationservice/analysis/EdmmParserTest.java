@@ -0,0 +1,146 @@
+package ust.tad.visualizationservice.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import ust.tad.visualizationservice.models.tadm.ModelEntity;
+import ust.tad.visualizationservice.models.tadm.TechnologyAgnosticDeploymentModel;
+import ust.tad.visualizationservice.workload.WorkloadGenerator;
+import ust.tad.visualizationservice.workload.WorkloadOptions;
+
+class EdmmParserTest {
+
+  private static final UUID TRANSFORMATION_PROCESS_ID = UUID.randomUUID();
+
+  @Test
+  void parsesWorkloadModelsLikeBaseline() throws Exception {
+    for (String topology : List.of("random", "chain", "star", "none")) {
+      WorkloadOptions options = new WorkloadOptions(60, 3, topology, 1.0, 2, 3, 2, 1, 42);
+      String yaml = WorkloadGenerator.generate(options).get(0);
+      assertSameModelAsBaseline(yaml);
+    }
+  }
+
+  @Test
+  void resolvesAnchorsAliasesAndMergeKeysLikeBaseline() throws Exception {
+    String yaml =
+        String.join(
+            "\n",
+            "properties:",
+            "  - key: owner",
+            "    type: STRING",
+            "    value: &owner ops",
+            "component_types:",
+            "  - base:",
+            "      extends: \"-\"",
+            "      properties: &baseProperties",
+            "        - port:",
+            "            type: INTEGER",
+            "            required: false",
+            "  - web:",
+            "      <<: &webType",
+            "        extends: base",
+            "        description: web server",
+            "  - proxy: *webType",
+            "relation_types:",
+            "  - HostedOn:",
+            "      extends: \"-\"",
+            "      properties: *baseProperties",
+            "components:",
+            "  - vm:",
+            "      type: base",
+            "      properties: &vmProperties",
+            "        - port: 22",
+            "        - owner: *owner",
+            "  - app:",
+            "      <<: *webType",
+            "      type: web",
+            "      properties: *vmProperties",
+            "  - edge: &edge",
+            "      type: proxy",
+            "      description: *owner",
+            "relations:",
+            "  - app_HostedOn_vm:",
+            "      type: HostedOn",
+            "      source: app",
+            "      target: vm",
+            "  - edge_HostedOn_vm:",
+            "      type: HostedOn",
+            "      source: edge",
+            "      target: vm",
+            "");
+    assertSameModelAsBaseline(yaml);
+  }
+
+  @Test
+  void reportsUndefinedAliasAsIOException() {
+    String yaml = String.join("\n", "components:", "  - vm:", "      properties: *missing", "");
+    IOException e = assertThrows(IOException.class, () -> parse(yaml));
+    assertTrue(e.getMessage().contains("missing"), e.getMessage());
+  }
+
+  @Test
+  void reportsMalformedYamlAsIOException() {
+    String yaml = String.join("\n", "components:", "  - vm: [type: base", "");
+    assertThrows(IOException.class, () -> parse(yaml));
+  }
+
+  @Test
+  void limitsAliasesOfCollections() {
+    StringBuilder yaml = new StringBuilder("a0: &a0 [x, y, z, w]\n");
+    for (int level = 1; level < 9; level++) {
+      yaml.append('a').append(level).append(": &a").append(level).append(" [");
+      for (int alias = 0; alias < 10; alias++) {
+        yaml.append(alias == 0 ? "" : ", ").append("*a").append(level - 1);
+      }
+      yaml.append("]\n");
+    }
+    yaml.append("components: []\n");
+    assertThrows(IOException.class, () -> parse(yaml.toString()));
+  }
+
+  private static TechnologyAgnosticDeploymentModel parse(String yaml) throws Exception {
+    EdmmParser parser = new EdmmParser();
+    parser.parse(new StringReader(yaml));
+    return parser.toModel(TRANSFORMATION_PROCESS_ID);
+  }
+
+  private static void assertSameModelAsBaseline(String yaml) throws Exception {
+    BaselineEdmmParser baselineParser = new BaselineEdmmParser();
+    baselineParser.parse(new StringReader(yaml));
+    TechnologyAgnosticDeploymentModel expected = baselineParser.toModel(TRANSFORMATION_PROCESS_ID);
+    TechnologyAgnosticDeploymentModel actual = parse(yaml);
+
+    identifyByName(expected);
+    identifyByName(actual);
+    assertEquals(expected.getProperties(), actual.getProperties());
+    assertEquals(expected.getComponentTypes(), actual.getComponentTypes());
+    assertEquals(expected.getRelationTypes(), actual.getRelationTypes());
+    assertEquals(expected.getComponents(), actual.getComponents());
+    assertEquals(expected.getRelations(), actual.getRelations());
+  }
+
+  /*
+   * Replace the random ids of the entities by their names, so that the entities of two parses of
+   * the same model are equal.
+   * @param model the model
+   */
+  private static void identifyByName(TechnologyAgnosticDeploymentModel model) {
+    for (List<? extends ModelEntity> entities :
+        List.of(
+            model.getComponentTypes(),
+            model.getRelationTypes(),
+            model.getComponents(),
+            model.getRelations())) {
+      for (ModelEntity entity : entities) {
+        entity.setId(entity.getName());
+      }
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package ust.tad.visualizationservice.layout;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import ust.tad.visualizationservice.models.tadm.Component;
+import ust.tad.visualizationservice.models.tadm.InvalidRelationException;
+import ust.tad.visualizationservice.models.tadm.Relation;
+import ust.tad.visualizationservice.models.tadm.RelationType;
+
+class LayoutCacheTest {
+
+  private static final LayoutOptions OPTIONS = new LayoutOptions(96, "false", 1920, 1080, "dot");
+
+  private static final List<String> NODES = List.of("vm", "db", "app", "web");
+
+  private static final List<String> RELATIONS =
+      List.of("app HostedOn vm", "db HostedOn vm", "web ConnectsTo app", "app ConnectsTo db");
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void fingerprintIgnoresOrderOfComponentsAndRelations() throws InvalidRelationException {
+    List<String> nodes = new ArrayList<>(NODES);
+    List<String> relations = new ArrayList<>(RELATIONS);
+    Collections.reverse(nodes);
+    Collections.reverse(relations);
+
+    assertEquals(
+        LayoutCache.fingerprint(graph(NODES, RELATIONS), OPTIONS),
+        LayoutCache.fingerprint(graph(nodes, relations), OPTIONS));
+  }
+
+  @Test
+  void fingerprintDependsOnNodesAndEdges() throws InvalidRelationException {
+    String fingerprint = LayoutCache.fingerprint(graph(NODES, RELATIONS), OPTIONS);
+    List<String> nodes = new ArrayList<>(NODES);
+    nodes.add("cache");
+    List<String> retyped = new ArrayList<>(RELATIONS);
+    retyped.set(0, "app ConnectsTo vm");
+    List<String> reversed = new ArrayList<>(RELATIONS);
+    reversed.set(2, "app ConnectsTo web");
+
+    assertNotEquals(fingerprint, LayoutCache.fingerprint(graph(nodes, RELATIONS), OPTIONS));
+    assertNotEquals(fingerprint, LayoutCache.fingerprint(graph(NODES, retyped), OPTIONS));
+    assertNotEquals(fingerprint, LayoutCache.fingerprint(graph(NODES, reversed), OPTIONS));
+  }
+
+  @Test
+  void fingerprintDependsOnOptions() throws InvalidRelationException {
+    LayoutGraph graph = graph(NODES, RELATIONS);
+    List<LayoutOptions> changed =
+        List.of(
+            new LayoutOptions(72, "false", 1920, 1080, "dot"),
+            new LayoutOptions(96, "partial", 1920, 1080, "dot"),
+            new LayoutOptions(96, "false", 1280, 1080, "dot"),
+            new LayoutOptions(96, "false", 1920, 720, "dot"),
+            new LayoutOptions(96, "false", 1920, 1080, "layered"));
+
+    assertEquals(
+        LayoutCache.fingerprint(graph, OPTIONS),
+        LayoutCache.fingerprint(graph, new LayoutOptions(96, "false", 1920, 1080, "dot")));
+    assertEquals(
+        LayoutCache.fingerprint(OPTIONS),
+        LayoutCache.fingerprint(new LayoutOptions(96, "false", 1920, 1080, "dot")));
+    for (LayoutOptions options : changed) {
+      assertNotEquals(
+          LayoutCache.fingerprint(graph, OPTIONS), LayoutCache.fingerprint(graph, options));
+      assertNotEquals(LayoutCache.fingerprint(OPTIONS), LayoutCache.fingerprint(options));
+    }
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedLayoutsByNodeCount() {
+    LayoutCache cache = new LayoutCache(true, 10, meterRegistry);
+    cache.put("a", layout("a", 4));
+    cache.put("b", layout("b", 4));
+    assertNotNull(cache.get("a"));
+    cache.put("c", layout("c", 4));
+
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("c"));
+    assertEquals(2, cache.size());
+    assertEquals(1, count("layout.cache.evictions"));
+
+    cache.put("c", layout("c", 4));
+    assertEquals(2, cache.size());
+    assertEquals(1, count("layout.cache.evictions"));
+
+    cache.put("d", layout("d", 7));
+    assertNull(cache.get("a"));
+    assertNull(cache.get("c"));
+    assertNotNull(cache.get("d"));
+    assertEquals(1, cache.size());
+    assertEquals(3, count("layout.cache.evictions"));
+  }
+
+  @Test
+  void skipsLayoutsLargerThanCache() {
+    LayoutCache cache = new LayoutCache(true, 10, meterRegistry);
+    cache.put("a", layout("a", 4));
+    cache.put("large", layout("large", 11));
+
+    assertNull(cache.get("large"));
+    assertNotNull(cache.get("a"));
+    assertEquals(1, cache.size());
+    assertEquals(0, count("layout.cache.evictions"));
+  }
+
+  @Test
+  void returnsCopiesAndCountsHitsAndMisses() {
+    LayoutCache cache = new LayoutCache(true, 10, meterRegistry);
+    Layout layout = layout("a", 2);
+    cache.put("a", layout);
+    layout.getPositions().get("a0")[0] = -1;
+    cache.get("a").getPositions().get("a0")[0] = -2;
+
+    assertArrayEquals(new int[] {0, 0}, cache.get("a").getPositions().get("a0"));
+    assertNull(cache.get("b"));
+    assertEquals(2, count("layout.cache.hits"));
+    assertEquals(1, count("layout.cache.misses"));
+  }
+
+  @Test
+  void disabledCacheStoresNothing() {
+    LayoutCache cache = new LayoutCache(false, 10, meterRegistry);
+    cache.put("a", layout("a", 2));
+
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(name).functionCounter().count();
+  }
+
+  /*
+   * Create a layout with the given number of nodes named by the prefix and their index.
+   */
+  private static Layout layout(String prefix, int size) {
+    Map<String, int[]> positions = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      positions.put(prefix + i, new int[] {i * 100, 0});
+    }
+    return new Layout(positions);
+  }
+
+  /*
+   * Create the layout graph of a model with the given components and relations, each relation
+   * given as "source type target".
+   */
+  private static LayoutGraph graph(List<String> nodes, List<String> relations)
+      throws InvalidRelationException {
+    Map<String, Component> components = new LinkedHashMap<>();
+    for (String node : nodes) {
+      Component component = new Component();
+      component.setName(node);
+      components.put(node, component);
+    }
+    List<Relation> modelRelations = new ArrayList<>();
+    for (String relation : relations) {
+      String[] parts = relation.split(" ");
+      RelationType type = new RelationType();
+      type.setName(parts[1]);
+      modelRelations.add(
+          new Relation()
+              .type(type)
+              .source(components.get(parts[0]))
+              .target(components.get(parts[2])));
+    }
+    return LayoutGraph.fromModel(
+        new ArrayList<>(components.values()), RelationIndex.fromModel(modelRelations));
+  }
+}
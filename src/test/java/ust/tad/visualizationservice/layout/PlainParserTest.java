@@ -0,0 +1,129 @@
+package ust.tad.visualizationservice.layout;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PlainParserTest {
+
+  @Test
+  void parsesGraphNodesAndEdges() throws IOException {
+    String plain =
+        String.join(
+            "\n",
+            "graph 1 3.5 2.25",
+            "node vm 1.75 0.5 1.2 0.5 vm solid box black lightgrey",
+            "node app 1.75 1.75 1.2 0.5 app solid box black lightgrey",
+            "edge app vm 4 1.75 1.5 1.75 1.25 1.75 1 1.75 0.75 HostedOn 2.1 1.1 solid black",
+            "stop",
+            "");
+    PlainLayout layout = PlainParser.parse(new StringReader(plain));
+
+    assertEquals(1, layout.getScale());
+    assertEquals(3.5, layout.getWidth());
+    assertEquals(2.25, layout.getHeight());
+    assertArrayEquals(new double[] {1.75, 0.5}, layout.getNodes().get("vm"));
+    assertArrayEquals(new double[] {1.75, 1.75}, layout.getNodes().get("app"));
+    assertArrayEquals(
+        new double[] {1.75, 1.5, 1.75, 1.25, 1.75, 1, 1.75, 0.75},
+        layout.getEdges().get("app").get("vm"));
+  }
+
+  @Test
+  void parsesQuotedNamesWithSpacesAndEscapes() throws IOException {
+    String plain =
+        String.join(
+            "\n",
+            "graph 1 2 2",
+            "node \"web server\" 1 1 1 0.5 \"web server\" solid box black lightgrey",
+            "node \"say \\\"hi\\\"\" 1 2 1 0.5 \"say \\\"hi\\\"\" solid box black lightgrey",
+            "node \"C:\\\\data\" 1 3 1 0.5 \"C:\\\\data\" solid box black lightgrey",
+            "node \"a\\b\" 1 4 1 0.5 \"a\\b\" solid box black lightgrey",
+            "edge \"web server\" \"say \\\"hi\\\"\" 2 1 1 1 2 \"a label\" 1 1.5 solid black",
+            "stop",
+            "");
+    PlainLayout layout = PlainParser.parse(new StringReader(plain));
+
+    assertArrayEquals(new double[] {1, 1}, layout.getNodes().get("web server"));
+    assertArrayEquals(new double[] {1, 2}, layout.getNodes().get("say \"hi\""));
+    assertArrayEquals(new double[] {1, 3}, layout.getNodes().get("C:\\data"));
+    assertArrayEquals(new double[] {1, 4}, layout.getNodes().get("a\\b"));
+    assertArrayEquals(
+        new double[] {1, 1, 1, 2}, layout.getEdges().get("web server").get("say \"hi\""));
+  }
+
+  @Test
+  void parsesSignedNumbersAndExponents() throws IOException {
+    String plain =
+        String.join(
+            "\n",
+            "graph 1 1e2 2.5E-1",
+            "node a -1.5 +2 1 0.5 a solid box black lightgrey",
+            "node b .5 3. 1 0.5 b solid box black lightgrey",
+            "node c 1.25e+1 -4E1 1 0.5 c solid box black lightgrey",
+            "node d 12345678901234567.5 0.000000000000000001 1 0.5 d solid box black lightgrey",
+            "stop",
+            "");
+    PlainLayout layout = PlainParser.parse(new StringReader(plain));
+
+    assertEquals(100, layout.getWidth());
+    assertEquals(0.25, layout.getHeight());
+    assertArrayEquals(new double[] {-1.5, 2}, layout.getNodes().get("a"));
+    assertArrayEquals(new double[] {0.5, 3}, layout.getNodes().get("b"));
+    assertArrayEquals(new double[] {12.5, -40}, layout.getNodes().get("c"));
+    assertArrayEquals(new double[] {12345678901234567.5, 1e-18}, layout.getNodes().get("d"));
+  }
+
+  @Test
+  void parsesLayoutsOfSeveralGraphs() throws IOException {
+    StringBuilder plain = new StringBuilder();
+    for (int graph = 0; graph < 3; graph++) {
+      plain.append("graph 1 ").append(graph + 1).append(" 1\n");
+      for (int node = 0; node < 500; node++) {
+        plain.append("node \"n ").append(node).append("\" ").append(graph).append(' ');
+        plain.append(node).append(".5 1 0.5 \"n ").append(node).append("\" solid box black grey\n");
+      }
+      plain.append("stop\n");
+    }
+    plain.append("\n");
+    List<PlainLayout> layouts = PlainParser.parse(new StringReader(plain.toString()), 3);
+
+    assertEquals(3, layouts.size());
+    for (int graph = 0; graph < 3; graph++) {
+      PlainLayout layout = layouts.get(graph);
+      assertEquals(graph + 1, layout.getWidth());
+      assertEquals(500, layout.getNodes().size());
+      assertArrayEquals(new double[] {graph, 499.5}, layout.getNodes().get("n 499"));
+    }
+  }
+
+  @Test
+  void rejectsFewerLayoutsThanGraphs() {
+    String plain = "graph 1 1 1\nstop\ngraph 1 2 2\nstop\n";
+    IOException e =
+        assertThrows(IOException.class, () -> PlainParser.parse(new StringReader(plain), 3));
+    assertTrue(e.getMessage().contains("found 2"), e.getMessage());
+  }
+
+  @Test
+  void rejectsShortRecords() {
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () -> PlainParser.parse(new StringReader("graph 1 2 2\nnode a 1\nstop\n")));
+    assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    assertThrows(IOException.class, () -> PlainParser.parse(new StringReader("edge a b 2 1 1")));
+  }
+
+  @Test
+  void rejectsMalformedTokens() {
+    assertThrows(IOException.class, () -> PlainParser.parse(new StringReader("graph 1 x 2\n")));
+    assertThrows(IOException.class, () -> PlainParser.parse(new StringReader("node \"open 1 1\n")));
+  }
+}
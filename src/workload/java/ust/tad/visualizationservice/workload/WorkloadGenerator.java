@@ -0,0 +1,264 @@
+package ust.tad.visualizationservice.workload;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic EDMM models for load and scaling tests. The components form stacks of the
+ * hosting depth, each component is hosted on the one below it. The stacks are distributed into
+ * clusters, and the ConnectsTo relations of the topology only connect stacks of the same cluster:
+ * random components of other stacks ("random"), the top of the next stack ("chain") or the top of
+ * the first stack of the cluster ("star"). The component types of each level of the stacks inherit
+ * from each other up to the type depth.
+ *
+ * <p>The model can be split into several files, as a task with several locations. The first file
+ * contains the types, the components are split into consecutive ranges, and each relation is
+ * written to the file of its source, so relations may refer to components of later files. The same
+ * options always generate the same files.
+ *
+ * <p>The generator can be run from the command line with options like "components=1000" and an
+ * "output=directory" to write the files to, a single file is printed if no directory is given.
+ */
+public final class WorkloadGenerator {
+
+  private static final String HOSTED_ON = "HostedOn";
+
+  private static final String CONNECTS_TO = "ConnectsTo";
+
+  private WorkloadGenerator() {}
+
+  public static void main(String[] args) throws IOException {
+    List<String> arguments = new ArrayList<>();
+    Path output = null;
+    for (String arg : args) {
+      if (arg.startsWith("output=")) {
+        output = Paths.get(arg.substring(7));
+      } else {
+        arguments.add(arg);
+      }
+    }
+    WorkloadOptions options = WorkloadOptions.fromArguments(arguments);
+    if (output == null && options.getFiles() == 1) {
+      System.out.print(generate(options).get(0));
+    } else if (output == null) {
+      throw new IllegalArgumentException("A model of several files requires an output directory");
+    } else {
+      for (Path file : write(options, output)) {
+        System.out.println(file);
+      }
+    }
+  }
+
+  /**
+   * Writes the files of a synthetic model to a directory.
+   *
+   * @param options The options of the workload.
+   * @param directory The directory to write the files to, it is created if necessary.
+   * @return The paths of the files, in the order they have to be parsed.
+   * @throws IOException if a file could not be written.
+   */
+  public static List<Path> write(WorkloadOptions options, Path directory) throws IOException {
+    Files.createDirectories(directory);
+    List<Path> paths = new ArrayList<>();
+    List<String> files = generate(options);
+    for (int i = 0; i < files.size(); i++) {
+      Path path = directory.resolve("workload-" + i + ".yaml");
+      try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+        writer.write(files.get(i));
+      }
+      paths.add(path);
+    }
+    return paths;
+  }
+
+  /**
+   * Generates the EDMM YAML of a synthetic model.
+   *
+   * @param options The options of the workload.
+   * @return The YAML of each file of the model, in the order they have to be parsed.
+   */
+  public static List<String> generate(WorkloadOptions options) {
+    int components = options.getComponents();
+    int files = Math.min(options.getFiles(), components);
+    Random random = new Random(options.getSeed());
+
+    List<StringBuilder> yaml = new ArrayList<>();
+    for (int file = 0; file < files; file++) {
+      StringBuilder content = new StringBuilder();
+      content.append("properties:\n");
+      content.append("  - key: generator\n    type: STRING\n    value: workload\n");
+      content.append("  - key: seed\n    type: INTEGER\n    value: ");
+      content.append(options.getSeed()).append('\n');
+      yaml.add(content);
+    }
+    appendTypes(yaml.get(0), options);
+
+    for (int file = 0; file < files; file++) {
+      yaml.get(file).append("components:\n");
+    }
+    for (int i = 0; i < components; i++) {
+      appendComponent(yaml.get(fileOf(i, components, files)), i, options, random);
+    }
+
+    List<int[]> relations = relations(options, random);
+    for (int file = 0; file < files; file++) {
+      yaml.get(file).append("relations:\n");
+    }
+    for (int[] relation : relations) {
+      appendRelation(
+          yaml.get(fileOf(relation[1], components, files)),
+          relation[0] == 0 ? HOSTED_ON : CONNECTS_TO,
+          relation[1],
+          relation[2]);
+    }
+
+    List<String> contents = new ArrayList<>();
+    for (StringBuilder content : yaml) {
+      contents.add(content.toString());
+    }
+    return contents;
+  }
+
+  private static int fileOf(int component, int components, int files) {
+    return (int) ((long) component * files / components);
+  }
+
+  /*
+   * Appends the relation types and the component types, a chain of types of the type depth for
+   * each level of the stacks.
+   */
+  private static void appendTypes(StringBuilder yaml, WorkloadOptions options) {
+    yaml.append("component_types:\n");
+    for (int level = 0; level < options.getHostingDepth(); level++) {
+      for (int depth = 0; depth < options.getTypeDepth(); depth++) {
+        yaml.append("  - ").append(typeName(level, depth, options)).append(":\n");
+        yaml.append("      extends: ");
+        yaml.append(depth == 0 ? "\"-\"" : typeName(level, depth - 1, options)).append('\n');
+        yaml.append("      description: level ").append(level).append(" of the stacks\n");
+        yaml.append("      properties:\n");
+        yaml.append("        - ").append(depth == 0 ? "port" : "setting_" + depth).append(":\n");
+        yaml.append("            type: INTEGER\n            required: false\n");
+      }
+    }
+    yaml.append("relation_types:\n");
+    yaml.append("  - ").append(HOSTED_ON).append(":\n      extends: \"-\"\n");
+    yaml.append("  - ").append(CONNECTS_TO).append(":\n      extends: \"-\"\n");
+  }
+
+  private static String typeName(int level, int depth, WorkloadOptions options) {
+    return options.getTypeDepth() == 1 ? "layer_" + level : "layer_" + level + "_" + depth;
+  }
+
+  private static void appendComponent(
+      StringBuilder yaml, int component, WorkloadOptions options, Random random) {
+    int level = component % options.getHostingDepth();
+    yaml.append("  - c_").append(component).append(":\n");
+    yaml.append("      type: ");
+    yaml.append(typeName(level, options.getTypeDepth() - 1, options)).append('\n');
+    if (options.getProperties() == 0) {
+      yaml.append("      properties: []\n");
+      return;
+    }
+    yaml.append("      properties:\n");
+    for (int i = 0; i < options.getProperties(); i++) {
+      String suffix = i < 4 ? "" : "_" + i / 4;
+      int port = 8000 + random.nextInt(1000);
+      yaml.append("        - ");
+      switch (i % 4) {
+        case 0:
+          yaml.append("port").append(suffix).append(": ").append(port);
+          break;
+        case 1:
+          yaml.append("url").append(suffix).append(": \"$(host):").append(port).append('"');
+          break;
+        case 2:
+          yaml.append("version").append(suffix).append(": \"1.");
+          yaml.append(random.nextInt(10)).append('"');
+          break;
+        default:
+          yaml.append("enabled").append(suffix).append(": ").append(random.nextBoolean());
+      }
+      yaml.append('\n');
+    }
+  }
+
+  /*
+   * Creates the relations of the model as type (0 for HostedOn, 1 for ConnectsTo), source and
+   * target component.
+   */
+  private static List<int[]> relations(WorkloadOptions options, Random random) {
+    int components = options.getComponents();
+    int hostingDepth = options.getHostingDepth();
+    int stacks = (components + hostingDepth - 1) / hostingDepth;
+    int clusters = Math.min(options.getClusters(), stacks);
+
+    List<int[]> relations = new ArrayList<>();
+    for (int i = 0; i < components; i++) {
+      if (i % hostingDepth > 0) {
+        relations.add(new int[] {0, i, i - 1});
+      }
+    }
+
+    if (options.getTopology().equals("random")) {
+      long connections = Math.round(components * options.getConnectsDensity());
+      Set<Long> connected = new HashSet<>();
+      for (long attempts = 0; connected.size() < connections && attempts < 4 * connections; ) {
+        attempts++;
+        int sourceStack = random.nextInt(stacks);
+        int cluster = clusterOf(sourceStack, stacks, clusters);
+        int first = firstStack(cluster, stacks, clusters);
+        int size = firstStack(cluster + 1, stacks, clusters) - first;
+        int targetStack = first + random.nextInt(size);
+        if (targetStack == sourceStack) {
+          continue;
+        }
+        int source = top(sourceStack, hostingDepth, components);
+        int target =
+            Math.min(components - 1, targetStack * hostingDepth + random.nextInt(hostingDepth));
+        if (connected.add((long) source << 32 | target)) {
+          relations.add(new int[] {1, source, target});
+        }
+      }
+    } else if (!options.getTopology().equals("none")) {
+      boolean chain = options.getTopology().equals("chain");
+      for (int cluster = 0; cluster < clusters; cluster++) {
+        int first = firstStack(cluster, stacks, clusters);
+        int end = firstStack(cluster + 1, stacks, clusters);
+        for (int stack = first + 1; stack < end; stack++) {
+          int source = top(chain ? stack - 1 : stack, hostingDepth, components);
+          int target = top(chain ? stack : first, hostingDepth, components);
+          relations.add(new int[] {1, source, target});
+        }
+      }
+    }
+    return relations;
+  }
+
+  private static int top(int stack, int hostingDepth, int components) {
+    return Math.min(components - 1, stack * hostingDepth + hostingDepth - 1);
+  }
+
+  private static int firstStack(int cluster, int stacks, int clusters) {
+    return (int) ((long) cluster * stacks / clusters);
+  }
+
+  private static int clusterOf(int stack, int stacks, int clusters) {
+    return (int) (((long) stack * clusters + clusters - 1) / stacks);
+  }
+
+  private static void appendRelation(StringBuilder yaml, String type, int source, int target) {
+    yaml.append("  - c_").append(source).append('_').append(type).append("_c_").append(target);
+    yaml.append(":\n      type: ").append(type);
+    yaml.append("\n      source: c_").append(source);
+    yaml.append("\n      target: c_").append(target).append('\n');
+  }
+}
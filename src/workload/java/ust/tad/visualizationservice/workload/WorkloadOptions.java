@@ -0,0 +1,237 @@
+package ust.tad.visualizationservice.workload;
+
+import java.util.List;
+import java.util.Objects;
+
+/** The immutable options of a synthetic EDMM workload. */
+public final class WorkloadOptions {
+
+  private final int components;
+
+  private final int hostingDepth;
+
+  private final String topology;
+
+  private final double connectsDensity;
+
+  private final int clusters;
+
+  private final int properties;
+
+  private final int typeDepth;
+
+  private final int files;
+
+  private final long seed;
+
+  /**
+   * Creates the options of a workload.
+   *
+   * @param components The number of components.
+   * @param hostingDepth The number of components in each HostedOn stack.
+   * @param topology The shape of the ConnectsTo relations between the stacks, "random", "chain",
+   *     "star" or "none".
+   * @param connectsDensity The number of ConnectsTo relations per component of the random topology.
+   * @param clusters The number of clusters without relations between each other.
+   * @param properties The number of properties of each component.
+   * @param typeDepth The depth of the inheritance hierarchy of the component types.
+   * @param files The number of files the model is split into.
+   * @param seed The seed of the random choices, the same seed always generates the same model.
+   */
+  public WorkloadOptions(
+      int components,
+      int hostingDepth,
+      String topology,
+      double connectsDensity,
+      int clusters,
+      int properties,
+      int typeDepth,
+      int files,
+      long seed) {
+    if (components < 1 || hostingDepth < 1 || clusters < 1 || typeDepth < 1 || files < 1) {
+      throw new IllegalArgumentException(
+          "The number of components, the hosting depth, clusters, type depth and files must be"
+              + " positive");
+    }
+    if (!List.of("random", "chain", "star", "none").contains(topology)) {
+      throw new IllegalArgumentException("Unknown topology " + topology);
+    }
+    this.components = components;
+    this.hostingDepth = hostingDepth;
+    this.topology = topology;
+    this.connectsDensity = connectsDensity;
+    this.clusters = clusters;
+    this.properties = properties;
+    this.typeDepth = typeDepth;
+    this.files = files;
+    this.seed = seed;
+  }
+
+  /**
+   * Creates the workload options from arguments like "components=1000" or "topology=star". Options
+   * that are not given keep their default value.
+   *
+   * @param arguments The arguments.
+   * @return The workload options.
+   */
+  public static WorkloadOptions fromArguments(List<String> arguments) {
+    int components = 100;
+    int hostingDepth = 3;
+    String topology = "random";
+    double connectsDensity = 1.0;
+    int clusters = 1;
+    int properties = 3;
+    int typeDepth = 1;
+    int files = 1;
+    long seed = 42;
+
+    for (String argument : arguments) {
+      String[] option = argument.split("=", 2);
+      if (option.length < 2) {
+        throw new IllegalArgumentException("Invalid option " + argument);
+      }
+      switch (option[0]) {
+        case "components":
+          components = Integer.parseInt(option[1]);
+          break;
+        case "hosting-depth":
+          hostingDepth = Integer.parseInt(option[1]);
+          break;
+        case "topology":
+          topology = option[1];
+          break;
+        case "connects-density":
+          connectsDensity = Double.parseDouble(option[1]);
+          break;
+        case "clusters":
+          clusters = Integer.parseInt(option[1]);
+          break;
+        case "properties":
+          properties = Integer.parseInt(option[1]);
+          break;
+        case "type-depth":
+          typeDepth = Integer.parseInt(option[1]);
+          break;
+        case "files":
+          files = Integer.parseInt(option[1]);
+          break;
+        case "seed":
+          seed = Long.parseLong(option[1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + option[0]);
+      }
+    }
+    return new WorkloadOptions(
+        components,
+        hostingDepth,
+        topology,
+        connectsDensity,
+        clusters,
+        properties,
+        typeDepth,
+        files,
+        seed);
+  }
+
+  public int getComponents() {
+    return this.components;
+  }
+
+  public int getHostingDepth() {
+    return this.hostingDepth;
+  }
+
+  public String getTopology() {
+    return this.topology;
+  }
+
+  public double getConnectsDensity() {
+    return this.connectsDensity;
+  }
+
+  public int getClusters() {
+    return this.clusters;
+  }
+
+  public int getProperties() {
+    return this.properties;
+  }
+
+  public int getTypeDepth() {
+    return this.typeDepth;
+  }
+
+  public int getFiles() {
+    return this.files;
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof WorkloadOptions)) {
+      return false;
+    }
+    WorkloadOptions other = (WorkloadOptions) o;
+    return components == other.components
+        && hostingDepth == other.hostingDepth
+        && Objects.equals(topology, other.topology)
+        && Double.compare(connectsDensity, other.connectsDensity) == 0
+        && clusters == other.clusters
+        && properties == other.properties
+        && typeDepth == other.typeDepth
+        && files == other.files
+        && seed == other.seed;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        components,
+        hostingDepth,
+        topology,
+        connectsDensity,
+        clusters,
+        properties,
+        typeDepth,
+        files,
+        seed);
+  }
+
+  @Override
+  public String toString() {
+    return "{"
+        + " components='"
+        + getComponents()
+        + "'"
+        + ", hostingDepth='"
+        + getHostingDepth()
+        + "'"
+        + ", topology='"
+        + getTopology()
+        + "'"
+        + ", connectsDensity='"
+        + getConnectsDensity()
+        + "'"
+        + ", clusters='"
+        + getClusters()
+        + "'"
+        + ", properties='"
+        + getProperties()
+        + "'"
+        + ", typeDepth='"
+        + getTypeDepth()
+        + "'"
+        + ", files='"
+        + getFiles()
+        + "'"
+        + ", seed='"
+        + getSeed()
+        + "'"
+        + "}";
+  }
+}